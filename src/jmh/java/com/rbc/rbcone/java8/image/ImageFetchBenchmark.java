@@ -0,0 +1,88 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.image.ImageService.getRawImage;
+import static com.rbc.rbcone.java8.util.ThreadUtils.createBlockingExecutor;
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.isVirtualThreadSupported;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rbc.rbcone.java8.util.EventSink;
+
+/**
+ * Fetches a batch of raw images concurrently on a fixed pool of platform
+ * threads and on virtual threads, the executor ImageService.getRawImageAsync
+ * uses. On JDKs without virtual threads (< 21) both modes use the platform
+ * pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ImageFetchBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"10000"})
+    private int images;
+
+    @Param({"100"})
+    private long fetchMillis;
+
+    @Param({"100"})
+    private int platformThreads;
+
+    private Executor executor;
+    private EventSink previous;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("virtual".equals(mode) && !isVirtualThreadSupported()) {
+            System.out.println("Virtual threads are not supported by this JDK, using platform threads");
+        }
+        executor = "virtual".equals(mode) ?
+                createBlockingExecutor(platformThreads) : createDaemonThreadPool(platformThreads);
+
+        // ImageService logs every fetch; keep it out of the results
+        previous = ImageService.getEventSink();
+        ImageService.setEventSink(EventSink.NO_OP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ImageService.setEventSink(previous);
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Object fetchAll() {
+        CompletableFuture[] futures = IntStream.range(0, images)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> getRawImage("Image" + i, fetchMillis), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).join();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.rbc.rbcone.java8.image;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rbc.rbcone.java8.util.AsyncEventSink;
+import com.rbc.rbcone.java8.util.EventSink;
+
+/**
+ * Scales images from several threads, with the ImageService messages printed
+ * on the calling threads, handed to an AsyncEventSink, or turned off. The
+ * messages go to a stream that discards them, so the results show the cost
+ * of formatting and of the PrintStream lock rather than of the terminal.
+ *
+ * Each scale is followed by some unrelated work, standing in for the rest of
+ * the processing of an image, so that the events come at a rate the async
+ * writer keeps up with. Without it, most async events would be dropped, and
+ * the result would measure dropping rather than queueing them. The written
+ * and dropped counts are printed at the end of the trial: results with
+ * drops are not comparable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ImageLoggingBenchmark {
+
+    @Param({"sync", "async", "off"})
+    private String logging;
+
+    /**
+     * Blackhole.consumeCPU tokens per scale, a few microseconds
+     */
+    @Param({"2000"})
+    private long work;
+
+    private TransformedImage transformedImage;
+    private EventSink previous;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transformedImage = TransformedImage.of("Cat", ImagePayload.of("tac"));
+        PrintStream discard = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        previous = ImageService.getEventSink();
+        if ("sync".equals(logging)) {
+            ImageService.setEventSink(EventSink.printing(discard));
+        } else if ("async".equals(logging)) {
+            ImageService.setEventSink(new AsyncEventSink(discard, 1 << 16));
+        } else {
+            ImageService.setEventSink(EventSink.NO_OP);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EventSink eventSink = ImageService.getEventSink();
+        if (eventSink instanceof AsyncEventSink) {
+            AsyncEventSink asyncEventSink = (AsyncEventSink) eventSink;
+            asyncEventSink.close();
+            System.out.println(String.format("Written: %d, dropped: %d",
+                    asyncEventSink.getWrittenCount(), asyncEventSink.getDroppedCount()));
+        }
+        ImageService.setEventSink(previous);
+    }
+
+    @Benchmark
+    public ScaledImage scale() {
+        Blackhole.consumeCPU(work);
+        return ImageService.getScaledImage(transformedImage);
+    }
+
+}
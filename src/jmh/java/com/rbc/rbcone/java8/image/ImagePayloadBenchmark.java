@@ -0,0 +1,61 @@
+package com.rbc.rbcone.java8.image;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Takes two images of the given size through the raw, transform, combine
+ * and scale steps of ImageService, with String data and with ImagePayload.
+ * Run with -prof gc to compare the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ImagePayloadBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean direct;
+
+    private String name1;
+    private String name2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        name1 = StringUtils.repeat("Cat", size / 3);
+        name2 = StringUtils.repeat("Dog", size / 3);
+    }
+
+    @Benchmark
+    public String strings() {
+        String transformed1 = StringUtils.reverse(StringUtils.lowerCase(name1));
+        String transformed2 = StringUtils.reverse(StringUtils.lowerCase(name2));
+        return StringUtils.upperCase(StringUtils.join(transformed1, transformed2, ' '));
+    }
+
+    @Benchmark
+    public ImagePayload payloads() {
+        ImagePayload transformed1 = ImagePayload.of(name1, direct).toLowerCase().reverse();
+        ImagePayload transformed2 = ImagePayload.of(name2, direct).toLowerCase().reverse();
+        return ImagePayload.concat(transformed1, transformed2, ' ').toUpperCase();
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks every PiCalc implementation over a range of digit counts.
+ * Large digit counts are very slow for the Machin variants, so narrow the
+ * parameters when needed (eg: -p algorithm=Chudnovsky -p digits=1000000)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class PiCalcBenchmark {
+
+    @Param({"Machin", "MachinParallel", "Chudnovsky", "BrentSalamin"})
+    private String algorithm;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int digits;
+
+    private PiCalc piCalc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        piCalc = create(algorithm, digits);
+    }
+
+    @Benchmark
+    public BigDecimal compute() {
+        return piCalc.compute();
+    }
+
+    static PiCalc create(String algorithm, int digits) {
+        switch (algorithm) {
+            case "Machin":
+                return new Machin(digits);
+            case "MachinParallel":
+                return new MachinParallel(digits);
+            case "Chudnovsky":
+                return new Chudnovsky(digits);
+            case "BrentSalamin":
+                return new BrentSalamin(digits);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown pi calculator: %s", algorithm));
+        }
+    }
+
+    /**
+     * Runs this benchmark with the GC profiler attached so allocation rates
+     * are reported alongside timings. Any JMH command line option may be
+     * passed to override the defaults.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PiCalcBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Newton reciprocal square root in BigDecimalMath against the
+ * Babylonian method previously used by PiCalc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class SqrtBenchmark {
+
+    private static final BigDecimal TEN_THOUSAND_FIVE = BigDecimal.valueOf(10005);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int scale;
+
+    @Benchmark
+    public BigDecimal newton() {
+        return BigDecimalMath.sqrt(TEN_THOUSAND_FIVE, scale);
+    }
+
+    @Benchmark
+    public BigDecimal babylonian() {
+        return babylonianSqrt(TEN_THOUSAND_FIVE, scale);
+    }
+
+    /**
+     * The Babylonian method (https://en.wikipedia.org/wiki/Methods_of_computing_square_roots)
+     * as originally implemented in PiCalc
+     */
+    private static BigDecimal babylonianSqrt(BigDecimal a, final int scale) {
+        BigDecimal x0 = BigDecimal.ZERO;
+        BigDecimal x1 = new BigDecimal(Math.sqrt(a.doubleValue()));
+        while (!x0.equals(x1)) {
+            x0 = x1;
+            x1 = a.divide(x0, scale, BigDecimal.ROUND_HALF_UP)
+                    .add(x0)
+                    .divide(PiCalc.TWO, scale, BigDecimal.ROUND_HALF_UP);
+        }
+        return x1;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.rbc.rbcone.java8.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Borrows, fills and returns a buffer from a BufferPool, against allocating
+ * a new one every time. Run with -prof gc to compare the bytes allocated
+ * per operation, and with -t to add contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Threads(2)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BufferPoolBenchmark {
+
+    @Param({"256", "65536"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean direct;
+
+    private final BufferPool pool = new BufferPool();
+    private BufferPool directPool;
+
+    @Setup
+    public void setUp() {
+        directPool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_SIZE, BufferPool.DEFAULT_THREAD_CACHE_SIZE,
+                BufferPool.DEFAULT_SHARED_CACHE_SIZE, true, false);
+    }
+
+    @Benchmark
+    public byte allocate() {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        buffer.put(size - 1, (byte) 1);
+        return buffer.get(0);
+    }
+
+    @Benchmark
+    public byte pooled() {
+        PooledBuffer pooled = (direct ? directPool : pool).allocate(size);
+        ByteBuffer buffer = pooled.buffer();
+        buffer.put(size - 1, (byte) 1);
+        byte b = buffer.get(0);
+        pooled.release();
+        return b;
+    }
+
+}
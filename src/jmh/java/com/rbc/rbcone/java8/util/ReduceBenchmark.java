@@ -0,0 +1,96 @@
+package com.rbc.rbcone.java8.util;
+
+import static com.rbc.rbcone.java8.util.FutureUtils.reduceInCompletionOrder;
+import static com.rbc.rbcone.java8.util.FutureUtils.reduceTree;
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Combines the results of futures that complete at random times with a slow
+ * operator, the way CompletableFutureTest2 combines transformed images: as a
+ * linear fold of thenCombineAsync, as a balanced tree, and in completion order.
+ *
+ * The linear fold runs all the combines one after the other, while the tree
+ * needs about log2(images) rounds once the last input has arrived.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ReduceBenchmark {
+
+    @Param({"linear", "tree", "completionOrder"})
+    private String strategy;
+
+    @Param({"16", "128"})
+    private int images;
+
+    @Param({"10"})
+    private long combineMillis;
+
+    @Param({"200"})
+    private int maxArrivalMillis;
+
+    private Executor executor;
+    private long[] arrivalMillis;
+    private BinaryOperator<String> operator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // One thread per pending input, and enough left over for every combine of a tree round
+        executor = createDaemonThreadPool(2 * images);
+        Random random = new Random(42);
+        arrivalMillis = IntStream.range(0, images).mapToLong(i -> random.nextInt(maxArrivalMillis + 1)).toArray();
+        operator = (s1, s2) -> {
+            delay(combineMillis);
+            return s1 + s2;
+        };
+    }
+
+    @Benchmark
+    public String reduce() {
+        List<CompletableFuture<String>> futures = IntStream.range(0, images)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    delay(arrivalMillis[i]);
+                    return String.valueOf(i % 10);
+                }, executor))
+                .collect(Collectors.toList());
+
+        switch (strategy) {
+            case "tree":
+                return reduceTree(futures, operator, executor).join();
+            case "completionOrder":
+                return reduceInCompletionOrder(futures, operator, executor).join();
+            default:
+                return futures.stream()
+                        .reduce((f1, f2) -> f1.thenCombineAsync(f2, operator, executor))
+                        .get()
+                        .join();
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.rbc.rbcone.java8.image;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.rbc.rbcone.java8.util.FutureUtils.withTimeout;
+
+/**
+ * Asynchronous front end to ImageService, for callers that would otherwise
+ * wrap each call in supplyAsync.
+ *
+ * The fetches, transforms, combines and renders wait on a timer rather than
+ * on a thread (see ThreadUtils.delayAsync), and their work runs on the
+ * executor rather than on the timer thread. Every future returned completes
+ * on the executor, so callbacks chained to it without an executor run there
+ * too, and fails with a TimeoutException if its step takes too long.
+ *
+ * Cheap steps, like scaling, run on the thread that completes the step
+ * before, without another trip through the executor.
+ */
+public class AsyncImageService {
+
+    public static final long DEFAULT_TIMEOUT = 5000;
+
+    private final Executor executor;
+    private final long timeoutMillis;
+
+    public AsyncImageService(Executor executor) {
+        this(executor, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param executor      runs the steps, completes the returned futures, and runs the callbacks chained to them
+     * @param timeoutMillis time allowed for each step, or 0 to wait forever
+     */
+    public AsyncImageService(Executor executor, long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative.");
+        }
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public CompletableFuture<RawImage> getRawImageAsync(String imageName) {
+        return withTimeout(ImageService.getRawImageAsync(imageName, executor), timeoutMillis, executor);
+    }
+
+    public CompletableFuture<TransformedImage> getTransformedImageAsync(RawImage rawImage) {
+        return withTimeout(ImageService.getTransformedImageAsync(rawImage, executor), timeoutMillis, executor);
+    }
+
+    public CompletableFuture<TransformedImage> getTransformedImageAsync(String imageName) {
+        return getRawImageAsync(imageName).thenCompose(this::getTransformedImageAsync);
+    }
+
+    public CompletableFuture<ScaledImage> getScaledImageAsync(String imageName) {
+        return getTransformedImageAsync(imageName).thenApply(ImageService::getScaledImage);
+    }
+
+    public CompletableFuture<Void> renderImageAsync(ScaledImage scaledImage) {
+        return withTimeout(ImageService.renderImageAsync(scaledImage, executor), timeoutMillis, executor);
+    }
+
+    /**
+     * Fetches, transforms, scales and renders the image
+     */
+    public CompletableFuture<Void> renderImageAsync(String imageName) {
+        return getScaledImageAsync(imageName).thenCompose(this::renderImageAsync);
+    }
+
+    /**
+     * Combines the transformed images once both are available
+     */
+    public CompletableFuture<TransformedImage> combineAsync(CompletableFuture<TransformedImage> tf1,
+                                                           CompletableFuture<TransformedImage> tf2) {
+        return tf1.thenCombine(tf2, (ti1, ti2) -> ImageService.combineTransformedImagesAsync(ti1, ti2, executor))
+                .thenCompose(combined -> withTimeout(combined, timeoutMillis, executor));
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+}
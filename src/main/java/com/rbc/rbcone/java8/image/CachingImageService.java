@@ -0,0 +1,56 @@
+package com.rbc.rbcone.java8.image;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import com.rbc.rbcone.java8.util.AsyncCache;
+
+/**
+ * Caches raw and transformed images by image name in front of ImageService.
+ * Duplicate requests for an image that is still being fetched or transformed
+ * share the same future instead of repeating the work.
+ */
+public class CachingImageService {
+
+    private final AsyncCache<String, RawImage> rawImages;
+    private final AsyncCache<String, TransformedImage> transformedImages;
+
+    public CachingImageService(Executor executor, int maximumSize, long ttlMillis) {
+        this(ImageService::getRawImage, executor, maximumSize, ttlMillis);
+    }
+
+    /**
+     * @param fetcher     fetches the raw image with the given name
+     * @param executor    runs the fetches and transforms
+     * @param maximumSize maximum number of raw, and of transformed, images to keep
+     * @param ttlMillis   time after which a cached image expires, or 0 to never expire
+     */
+    public CachingImageService(Function<String, RawImage> fetcher, Executor executor,
+                               int maximumSize, long ttlMillis) {
+        this.rawImages = new AsyncCache<>(
+                imageName -> CompletableFuture.supplyAsync(() -> fetcher.apply(imageName), executor),
+                maximumSize, ttlMillis);
+        this.transformedImages = new AsyncCache<>(
+                imageName -> getRawImage(imageName)
+                        .thenApplyAsync(ImageService::getTransformedImage, executor),
+                maximumSize, ttlMillis);
+    }
+
+    public CompletableFuture<RawImage> getRawImage(String imageName) {
+        return rawImages.get(imageName);
+    }
+
+    public CompletableFuture<TransformedImage> getTransformedImage(String imageName) {
+        return transformedImages.get(imageName);
+    }
+
+    public AsyncCache<String, RawImage> getRawImageCache() {
+        return rawImages;
+    }
+
+    public AsyncCache<String, TransformedImage> getTransformedImageCache() {
+        return transformedImages;
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.rbc.rbcone.java8.image;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Fetches raw images with hedging and deadlines, to keep a few slow fetches
+ * from holding up a whole batch.
+ *
+ * If a fetch has not completed after the given percentile of the latencies
+ * observed so far, a backup fetch of the same image is started. The first
+ * of the two to complete is used, and the other is cancelled, interrupting
+ * it if it is running. If neither has completed by the deadline, both are
+ * cancelled and the request completes with a fallback image instead.
+ *
+ * Hedging costs at most one extra fetch per request, and only for the
+ * slowest (100 - percentile)% of them.
+ *
+ * The latencies observed are those of the requests, from their start to
+ * their completion, whether by a fetch or by the fallback, plus the time
+ * spent by each cancelled fetch, a lower bound of its latency. Leaving out
+ * the slow fetches that lose or hit the deadline would lower the percentile,
+ * and hedge more and more.
+ */
+public class HedgedImageService {
+
+    /**
+     * Number of latencies to observe before hedging on the percentile
+     */
+    static final int MIN_SAMPLES = 20;
+
+    private static final int WINDOW_SIZE = 1024;
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "hedged-image-service-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Function<String, RawImage> fetcher;
+    private final Executor executor;
+    private final double hedgePercentile;
+    private final long deadlineMillis;
+    private final Function<String, RawImage> fallback;
+
+    private final long[] latencies = new long[WINDOW_SIZE];
+    private long sampleCount;
+    private volatile long hedgeDelayMillis;
+
+    private final LongAdder hedgeCount = new LongAdder();
+    private final LongAdder hedgeWinCount = new LongAdder();
+    private final LongAdder deadlineCount = new LongAdder();
+
+    /**
+     * Hedges with ImageService's raw image fetch, whose losing attempts are
+     * interrupted without a stack trace, once enough latencies have been
+     * observed, and falls back to an image with placeholder data
+     */
+    public HedgedImageService(Executor executor, double hedgePercentile, long deadlineMillis) {
+        this(ImageService::getCancellableRawImage, executor, hedgePercentile, Long.MAX_VALUE, deadlineMillis,
+                imageName -> new RawImage(imageName, "?"));
+    }
+
+    /**
+     * @param fetcher                 fetches the raw image with the given name
+     * @param executor                runs the fetches
+     * @param hedgePercentile         percentile of the observed latencies, between 0 and 100, after which to hedge
+     * @param initialHedgeDelayMillis time after which to hedge until MIN_SAMPLES latencies have been observed
+     * @param deadlineMillis          time after which to complete with the fallback, or 0 for no deadline
+     * @param fallback                creates the image to use when the deadline is reached
+     */
+    public HedgedImageService(Function<String, RawImage> fetcher, Executor executor, double hedgePercentile,
+                              long initialHedgeDelayMillis, long deadlineMillis,
+                              Function<String, RawImage> fallback) {
+        if (hedgePercentile < 0 || hedgePercentile > 100) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 and 100.");
+        }
+        if (initialHedgeDelayMillis < 0 || deadlineMillis < 0) {
+            throw new IllegalArgumentException("Delays must not be negative.");
+        }
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeDelayMillis = initialHedgeDelayMillis;
+        this.deadlineMillis = deadlineMillis;
+        this.fallback = fallback;
+    }
+
+    public CompletableFuture<RawImage> getRawImage(String imageName) {
+        long start = System.nanoTime();
+        CompletableFuture<RawImage> result = new CompletableFuture<>();
+        Attempt primary = new Attempt(imageName, result, start, false);
+        primary.start();
+
+        long hedgeDelay = hedgeDelayMillis;
+        if (hedgeDelay < Long.MAX_VALUE && (deadlineMillis == 0 || hedgeDelay < deadlineMillis)) {
+            ScheduledFuture<?> hedge = SCHEDULER.schedule(() -> {
+                if (!result.isDone()) {
+                    hedgeCount.increment();
+                    Attempt backup = new Attempt(imageName, result, start, true);
+                    result.whenComplete((rawImage, throwable) -> backup.cancel());
+                    backup.onFailure = primary;
+                    primary.onFailure = backup;
+                    backup.start();
+                }
+            }, hedgeDelay, TimeUnit.MILLISECONDS);
+            result.whenComplete((rawImage, throwable) -> hedge.cancel(false));
+        }
+        if (deadlineMillis > 0) {
+            ScheduledFuture<?> deadline = SCHEDULER.schedule(() -> {
+                if (!result.isDone()) {
+                    completeWithFallback(imageName, result, start);
+                }
+            }, deadlineMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((rawImage, throwable) -> deadline.cancel(false));
+        }
+        result.whenComplete((rawImage, throwable) -> primary.cancel());
+        return result;
+    }
+
+    /**
+     * Creates the fallback image on the executor, keeping the shared timer
+     * thread free for the other requests
+     */
+    private void completeWithFallback(String imageName, CompletableFuture<RawImage> result, long start) {
+        try {
+            executor.execute(() -> {
+                RawImage fallbackImage;
+                try {
+                    fallbackImage = fallback.apply(imageName);
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                    return;
+                }
+                if (!result.isDone()) {
+                    recordLatency((System.nanoTime() - start) / 1_000_000);
+                }
+                if (result.complete(fallbackImage)) {
+                    deadlineCount.increment();
+                }
+            });
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Time after which a backup fetch is started, or Long.MAX_VALUE if not hedging yet
+     */
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    /**
+     * Number of backup fetches started
+     */
+    public long getHedgeCount() {
+        return hedgeCount.sum();
+    }
+
+    /**
+     * Number of requests completed by their backup fetch
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.sum();
+    }
+
+    /**
+     * Number of requests completed with the fallback image
+     */
+    public long getDeadlineCount() {
+        return deadlineCount.sum();
+    }
+
+    private void recordLatency(long millis) {
+        synchronized (latencies) {
+            latencies[(int) (sampleCount++ % WINDOW_SIZE)] = millis;
+            if (sampleCount < MIN_SAMPLES || (sampleCount != MIN_SAMPLES && sampleCount % RECOMPUTE_INTERVAL != 0)) {
+                return;
+            }
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(sampleCount, WINDOW_SIZE));
+            Arrays.sort(window);
+            int index = (int) Math.ceil(hedgePercentile / 100 * window.length) - 1;
+            hedgeDelayMillis = window[Math.max(0, Math.min(index, window.length - 1))];
+        }
+    }
+
+    /**
+     * One fetch of the image, which can be interrupted once its result is no longer needed
+     */
+    private class Attempt implements Runnable {
+
+        private final String imageName;
+        private final CompletableFuture<RawImage> result;
+        private final long requestStart;
+        private final boolean backup;
+        private Thread runner;
+        private boolean cancelled;
+
+        /**
+         * Attempt that takes over reporting failures, if any
+         */
+        private volatile Attempt onFailure;
+        private volatile Throwable failure;
+
+        private Attempt(String imageName, CompletableFuture<RawImage> result, long requestStart, boolean backup) {
+            this.imageName = imageName;
+            this.result = result;
+            this.requestStart = requestStart;
+            this.backup = backup;
+        }
+
+        private void start() {
+            try {
+                executor.execute(this);
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            long start = System.nanoTime();
+            try {
+                RawImage rawImage = fetcher.apply(imageName);
+                boolean interrupted;
+                synchronized (this) {
+                    interrupted = cancelled;
+                }
+                if (interrupted) {
+                    recordLatency((System.nanoTime() - start) / 1_000_000);
+                } else {
+                    if (!result.isDone()) {
+                        recordLatency((System.nanoTime() - requestStart) / 1_000_000);
+                    }
+                    if (result.complete(rawImage) && backup) {
+                        hedgeWinCount.increment();
+                    }
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    if (cancelled) {
+                        // Clears an interrupt from cancel that arrived after the fetch returned
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Completes the request with the failure, unless the other attempt may still succeed
+         */
+        private void fail(Throwable t) {
+            failure = t;
+            Attempt other = onFailure;
+            if (other == null || other.failure != null) {
+                result.completeExceptionally(t);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+
+}
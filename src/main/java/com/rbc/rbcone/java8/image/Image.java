@@ -1,8 +1,22 @@
 package com.rbc.rbcone.java8.image;
 
+/**
+ * An image holds its data either as a String, as it always has, or as an
+ * ImagePayload, which the ImageService steps share instead of copying.
+ * The data field, when not null, takes precedence over the payload, so that
+ * subclasses setting it directly keep working; each setter clears the other
+ * representation. Data held as a payload is decoded once, on the first
+ * call to getData.
+ */
 public abstract class Image {
     protected String name;
     protected String data;
+    protected ImagePayload payload;
+
+    /**
+     * The payload decoded by getData, or null
+     */
+    private String decodedPayload;
 
     public Image() {
         this(null, null);
@@ -21,19 +35,51 @@ public abstract class Image {
         this.name = name;
     }
 
+    /**
+     * The data, decoded on the first call if held as a payload, or null
+     */
     public String getData() {
-        return data;
+        if (data != null) {
+            return data;
+        }
+        if (payload == null) {
+            return null;
+        }
+        String decoded = decodedPayload;
+        if (decoded == null) {
+            decoded = payload.toString();
+            decodedPayload = decoded;
+        }
+        return decoded;
     }
 
     public void setData(String data) {
         this.data = data;
+        this.payload = null;
+        this.decodedPayload = null;
+    }
+
+    /**
+     * The data as a payload, encoded anew on each call if held as a String, or null
+     */
+    public ImagePayload getPayload() {
+        if (data != null) {
+            return ImagePayload.of(data);
+        }
+        return payload;
+    }
+
+    public void setPayload(ImagePayload payload) {
+        this.payload = payload;
+        this.data = null;
+        this.decodedPayload = null;
     }
 
     @Override
     public String toString() {
         return "Image{" +
                 "name='" + name + '\'' +
-                ", data='" + data + '\'' +
+                ", data='" + getData() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,303 @@
+package com.rbc.rbcone.java8.image;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import com.rbc.rbcone.java8.util.BufferPool;
+import com.rbc.rbcone.java8.util.PooledBuffer;
+
+/**
+ * Immutable image data, stored as one byte per character (ISO-8859-1) in a
+ * heap or direct ByteBuffer.
+ *
+ * Reversing and changing the case return views of the same buffer, so a raw
+ * image can go through the transform and scale stages without its data
+ * being copied. Only concat, which needs the data of two images side by
+ * side, allocates a new buffer.
+ *
+ * Characters outside ISO-8859-1 are stored as '?'. Case changes map each
+ * character on its own, so unlike String.toUpperCase, 'ß' stays 'ß'. Use
+ * canEncode to tell whether text can be stored without either difference.
+ *
+ * A payload may borrow its buffer from a BufferPool, in which case release
+ * must be called, on exactly one of its views, once none of them are used
+ * any more.
+ */
+public final class ImagePayload {
+
+    private static final int REVERSED = 1;
+    private static final int UPPER_CASE = 2;
+    private static final int LOWER_CASE = 4;
+
+    private static final byte[] UPPER = caseTable(true);
+    private static final byte[] LOWER = caseTable(false);
+    private static final boolean[] ENCODABLE = encodableTable();
+
+    /**
+     * Read only, from index 0 to its limit
+     */
+    private final ByteBuffer buffer;
+    private final int flags;
+
+    /**
+     * Where the buffer was borrowed from, or null
+     */
+    private final PooledBuffer pooled;
+
+    private ImagePayload(ByteBuffer buffer, int flags, PooledBuffer pooled) {
+        this.buffer = buffer;
+        this.flags = flags;
+        this.pooled = pooled;
+    }
+
+    public static ImagePayload of(CharSequence text) {
+        return of(text, false);
+    }
+
+    /**
+     * @param direct whether to store the data outside of the Java heap
+     */
+    public static ImagePayload of(CharSequence text, boolean direct) {
+        int length = text.length();
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+        return encode(text, buffer, null);
+    }
+
+    /**
+     * Stores the text in a buffer borrowed from the pool
+     */
+    public static ImagePayload of(CharSequence text, BufferPool pool) {
+        PooledBuffer pooled = pool.allocate(text.length());
+        return encode(text, pooled.buffer(), pooled);
+    }
+
+    /**
+     * Whether every character of the text is in ISO-8859-1, and changes case
+     * to a single character in ISO-8859-1, so that the payload and its views
+     * hold the same data as the String and its String operations would
+     */
+    public static boolean canEncode(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c > 0xff || !ENCODABLE[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ImagePayload encode(CharSequence text, ByteBuffer buffer, PooledBuffer pooled) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            buffer.put(i, c <= 0xff ? (byte) c : (byte) '?');
+        }
+        return new ImagePayload(buffer.asReadOnlyBuffer(), 0, pooled);
+    }
+
+    /**
+     * Uses the bytes between the position and the limit of the buffer,
+     * without copying them. The buffer must not be modified afterwards.
+     */
+    public static ImagePayload wrap(ByteBuffer buffer) {
+        return new ImagePayload(buffer.slice().asReadOnlyBuffer(), 0, null);
+    }
+
+    /**
+     * The data of first, then of second, then the separator, as
+     * StringUtils.join(first, second, separator) does with Strings.
+     * A null payload counts as empty. The result borrows its buffer from
+     * the pool of the first pooled input, if any.
+     *
+     * @throws IllegalStateException if an input has been released
+     */
+    public static ImagePayload concat(ImagePayload first, ImagePayload second, char separator) {
+        // Before borrowing a buffer, which would not be returned if a copy failed
+        if (first != null) {
+            first.checkNotReleased();
+        }
+        if (second != null) {
+            second.checkNotReleased();
+        }
+        int firstLength = (first == null) ? 0 : first.length();
+        int secondLength = (second == null) ? 0 : second.length();
+        int length = firstLength + secondLength + 1;
+        PooledBuffer pooled = null;
+        ByteBuffer buffer;
+        if (first != null && first.pooled != null) {
+            pooled = first.pooled.getPool().allocate(length);
+            buffer = pooled.buffer();
+        } else if (second != null && second.pooled != null) {
+            pooled = second.pooled.getPool().allocate(length);
+            buffer = pooled.buffer();
+        } else if ((first != null && first.isDirect()) || (second != null && second.isDirect())) {
+            buffer = ByteBuffer.allocateDirect(length);
+        } else {
+            buffer = ByteBuffer.allocate(length);
+        }
+        if (first != null) {
+            first.copyTo(buffer);
+        }
+        if (second != null) {
+            second.copyTo(buffer);
+        }
+        buffer.put(separator <= 0xff ? (byte) separator : (byte) '?');
+        buffer.flip();
+        return new ImagePayload(buffer.asReadOnlyBuffer(), 0, pooled);
+    }
+
+    public int length() {
+        return buffer.limit();
+    }
+
+    public boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    public boolean isPooled() {
+        return pooled != null;
+    }
+
+    /**
+     * Returns the buffer of a pooled payload to its pool, after which
+     * reading this payload or its views throws an IllegalStateException
+     * rather than returning the data of the buffer's next borrower. Does
+     * nothing if the payload is not pooled.
+     *
+     * @throws IllegalStateException if the buffer has already been released
+     */
+    public void release() {
+        if (pooled != null) {
+            pooled.release();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the payload has been released
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        checkNotReleased();
+        return get(index);
+    }
+
+    /**
+     * byteAt without the checks, for loops that check once up front
+     */
+    private byte get(int index) {
+        byte b = buffer.get((flags & REVERSED) != 0 ? length() - 1 - index : index);
+        if ((flags & UPPER_CASE) != 0) {
+            return UPPER[b & 0xff];
+        }
+        if ((flags & LOWER_CASE) != 0) {
+            return LOWER[b & 0xff];
+        }
+        return b;
+    }
+
+    public ImagePayload reverse() {
+        return new ImagePayload(buffer, flags ^ REVERSED, pooled);
+    }
+
+    public ImagePayload toUpperCase() {
+        return new ImagePayload(buffer, (flags & REVERSED) | UPPER_CASE, pooled);
+    }
+
+    public ImagePayload toLowerCase() {
+        return new ImagePayload(buffer, (flags & REVERSED) | LOWER_CASE, pooled);
+    }
+
+    /**
+     * Writes the data at the position of the destination, advancing it
+     *
+     * @throws IllegalStateException if the payload has been released
+     */
+    public void copyTo(ByteBuffer destination) {
+        checkNotReleased();
+        if (flags == 0) {
+            destination.put(buffer.duplicate());
+            return;
+        }
+        int length = length();
+        if (destination.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < length; i++) {
+            destination.put(get(i));
+        }
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length()];
+        copyTo(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImagePayload)) {
+            return false;
+        }
+        ImagePayload that = (ImagePayload) o;
+        if (length() != that.length()) {
+            return false;
+        }
+        checkNotReleased();
+        that.checkNotReleased();
+        for (int i = 0; i < length(); i++) {
+            if (get(i) != that.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        checkNotReleased();
+        int hash = 1;
+        for (int i = 0; i < length(); i++) {
+            hash = 31 * hash + get(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return new String(toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private void checkNotReleased() {
+        if (pooled != null && pooled.isReleased()) {
+            throw new IllegalStateException("Payload has been released.");
+        }
+    }
+
+    private static boolean[] encodableTable() {
+        boolean[] table = new boolean[256];
+        for (int i = 0; i < table.length; i++) {
+            String c = String.valueOf((char) i);
+            String upper = c.toUpperCase(Locale.ROOT);
+            String lower = c.toLowerCase(Locale.ROOT);
+            table[i] = upper.length() == 1 && upper.charAt(0) <= 0xff
+                    && lower.length() == 1 && lower.charAt(0) <= 0xff;
+        }
+        return table;
+    }
+
+    private static byte[] caseTable(boolean upper) {
+        byte[] table = new byte[256];
+        for (int i = 0; i < table.length; i++) {
+            char c = upper ? Character.toUpperCase((char) i) : Character.toLowerCase((char) i);
+            table[i] = (byte) (c <= 0xff ? c : i);
+        }
+        return table;
+    }
+
+}
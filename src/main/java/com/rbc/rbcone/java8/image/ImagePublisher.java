@@ -0,0 +1,236 @@
+package com.rbc.rbcone.java8.image;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Reactive Streams Publisher of the scaled images for a list of image names,
+ * emitted in the order in which they are ready rather than the order of the
+ * names, so a subscriber can start rendering as soon as the first image is.
+ *
+ * Images are only fetched on demand: at any time, the number of images
+ * being processed or waiting to be emitted never exceeds the number
+ * requested by the subscriber and not yet emitted, nor, for those being
+ * processed, the maximum concurrency. A slow subscriber therefore slows down
+ * the fetches instead of letting scaled images pile up.
+ *
+ * Each subscriber gets its own run over the image names. A failure to
+ * process an image ends the stream with onError.
+ *
+ * Built on the org.reactivestreams interfaces, as java.util.concurrent.Flow
+ * requires Java 9; use org.reactivestreams.FlowAdapters to convert.
+ */
+public class ImagePublisher implements Publisher<ScaledImage> {
+
+    private final List<String> imageNames;
+    private final Function<String, ScaledImage> processor;
+    private final Executor executor;
+    private final int maxConcurrency;
+
+    /**
+     * Fetches, transforms and scales each image with ImageService
+     */
+    public ImagePublisher(Collection<String> imageNames, Executor executor, int maxConcurrency) {
+        this(imageNames,
+                imageName -> ImageService.getScaledImage(
+                        ImageService.getTransformedImage(ImageService.getRawImage(imageName))),
+                executor, maxConcurrency);
+    }
+
+    /**
+     * @param processor      makes the scaled image with the given name
+     * @param executor       runs the processor
+     * @param maxConcurrency number of images to process at once
+     */
+    public ImagePublisher(Collection<String> imageNames, Function<String, ScaledImage> processor,
+                          Executor executor, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive.");
+        }
+        this.imageNames = new ArrayList<>(imageNames);
+        this.processor = processor;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ScaledImage> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null.");
+        }
+        new ImageSubscription(subscriber).start();
+    }
+
+    /**
+     * Outcome of processing one image
+     */
+    private static class Result {
+        private final ScaledImage scaledImage;
+        private final Throwable failure;
+
+        private Result(ScaledImage scaledImage, Throwable failure) {
+            this.scaledImage = scaledImage;
+            this.failure = failure;
+        }
+    }
+
+    private class ImageSubscription implements Subscription {
+
+        private final Subscriber<? super ScaledImage> subscriber;
+        private final Iterator<String> remaining = imageNames.iterator();
+        private final Queue<Result> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger running = new AtomicInteger();
+
+        /**
+         * Number of pending calls to drain, which only runs on one thread at a time
+         */
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // Only accessed by drain
+        private long started;
+        private boolean done;
+
+        private ImageSubscription(Subscriber<? super ScaledImage> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            try {
+                subscriber.onSubscribe(this);
+            } catch (Throwable t) {
+                cancelled = true;
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " images, which is not positive.");
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        /**
+         * Emits the ready images, starts processing more if there is demand,
+         * and completes the stream once all are emitted
+         */
+        private void drain() {
+            if (pendingDrains.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                drainOnce();
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainOnce() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            Throwable invalid = invalidRequest;
+            if (invalid != null) {
+                finish();
+                subscriber.onError(invalid);
+                return;
+            }
+
+            Result result;
+            while ((result = ready.peek()) != null) {
+                if (result.failure != null) {
+                    finish();
+                    subscriber.onError(result.failure);
+                    return;
+                }
+                if (requested.get() == 0) {
+                    break;
+                }
+                ready.poll();
+                requested.decrementAndGet();
+                started--;
+                try {
+                    subscriber.onNext(result.scaledImage);
+                } catch (Throwable t) {
+                    // A subscriber that throws is considered to have cancelled
+                    cancelled = true;
+                }
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+            }
+
+            // started counts the images being processed or waiting to be emitted
+            while (started < requested.get() && running.get() < maxConcurrency && remaining.hasNext()) {
+                started++;
+                process(remaining.next());
+            }
+
+            if (!remaining.hasNext() && running.get() == 0 && ready.isEmpty()) {
+                finish();
+                subscriber.onComplete();
+            }
+        }
+
+        private void process(String imageName) {
+            running.incrementAndGet();
+            try {
+                CompletableFuture.supplyAsync(() -> processor.apply(imageName), executor)
+                        .whenComplete(this::onProcessed);
+            } catch (Throwable t) {
+                onProcessed(null, t);
+            }
+        }
+
+        private void onProcessed(ScaledImage scaledImage, Throwable failure) {
+            if (failure == null && scaledImage == null) {
+                failure = new NullPointerException("No scaled image was produced.");
+            }
+            // Queued before running is decremented, so drain cannot complete without it
+            if (!cancelled) {
+                ready.offer(new Result(scaledImage, failure));
+            }
+            running.decrementAndGet();
+            drain();
+        }
+
+        private void finish() {
+            done = true;
+            cancelled = true;
+            ready.clear();
+        }
+    }
+
+}
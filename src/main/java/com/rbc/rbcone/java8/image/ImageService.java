@@ -1,65 +1,295 @@
 package com.rbc.rbcone.java8.image;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
 import org.apache.commons.lang3.StringUtils;
 
+import com.rbc.rbcone.java8.util.BufferPool;
+import com.rbc.rbcone.java8.util.EventSink;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createBlockingExecutor;
 import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delayAsync;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delayQuietly;
 
 public class ImageService {
 
     private static final long DEFAULT_DELAY = 1000;
 
+    /**
+     * Size of the fetch pool on JDKs without virtual threads
+     */
+    private static final int FETCH_POOL_SIZE = 100;
+
+    /**
+     * Runs the blocking fetches of getRawImageAsync(String), on a virtual
+     * thread each when the JDK supports them
+     */
+    private static final Executor FETCH_EXECUTOR = createBlockingExecutor(FETCH_POOL_SIZE);
+
+    private static volatile EventSink events = EventSink.STDOUT;
+
+    /**
+     * Sets where the progress messages go, System.out by default. Use
+     * EventSink.NO_OP to turn them off, or an AsyncEventSink to keep their
+     * formatting and printing off the calling threads.
+     */
+    public static void setEventSink(EventSink eventSink) {
+        events = (eventSink == null) ? EventSink.NO_OP : eventSink;
+    }
+
+    public static EventSink getEventSink() {
+        return events;
+    }
+
     public static RawImage getRawImage(String imageName) {
         return getRawImage(imageName, DEFAULT_DELAY);
     }
 
     public static RawImage getRawImage(String imageName, long millis) {
-        System.out.println(String.format("Getting raw image data for %s...", imageName));
+        return getRawImage(imageName, millis, null);
+    }
+
+    /**
+     * Fetches the raw image into a buffer borrowed from the pool, if not
+     * null. The buffer is shared by the transformed and scaled images made
+     * from it. The caller returns it to the pool, by releasing the payload of
+     * the last image made from it, or with renderImageAndRelease or
+     * combineTransformedImagesAndRelease.
+     */
+    public static RawImage getRawImage(String imageName, long millis, BufferPool pool) {
+        events.log("Getting raw image data for %s...", imageName);
         if (!delay(millis)) {
             return null;
         }
-        RawImage rawImage = new RawImage(imageName, StringUtils.lowerCase(imageName));
-        System.out.println(String.format("Finished getting raw image data for %s", imageName));
+        RawImage rawImage = rawImage(imageName, pool);
+        events.log("Finished getting raw image data for %s", imageName);
+        return rawImage;
+    }
+
+    /**
+     * Like getRawImage, for fetches that are interrupted to cancel them, eg
+     * the losing attempt of a hedged fetch: the interrupt is not reported
+     */
+    static RawImage getCancellableRawImage(String imageName) {
+        events.log("Getting raw image data for %s...", imageName);
+        if (!delayQuietly(DEFAULT_DELAY)) {
+            return null;
+        }
+        RawImage rawImage = rawImage(imageName, null);
+        events.log("Finished getting raw image data for %s", imageName);
         return rawImage;
     }
 
+    /**
+     * Runs getRawImage on the shared fetch executor, which starts a virtual
+     * thread per fetch on JDK 21+, so any number of fetches can block at once
+     * without holding up a platform thread each
+     */
+    public static CompletableFuture<RawImage> getRawImageAsync(String imageName) {
+        return CompletableFuture.supplyAsync(() -> getRawImage(imageName), FETCH_EXECUTOR);
+    }
+
+    public static CompletableFuture<RawImage> getRawImageAsync(String imageName, Executor executor) {
+        return getRawImageAsync(imageName, DEFAULT_DELAY, executor);
+    }
+
+    /**
+     * Like getRawImage, but waits on a timer instead of a thread, so any
+     * number of fetches can be in flight at once. The timer thread only
+     * signals the end of the wait: the image is made on the executor, and
+     * the returned future completes there. Cancelling it cancels the wait.
+     */
+    public static CompletableFuture<RawImage> getRawImageAsync(String imageName, long millis, Executor executor) {
+        events.log("Getting raw image data for %s...", imageName);
+        return delayAsync(millis, () -> {
+            RawImage rawImage = rawImage(imageName, null);
+            events.log("Finished getting raw image data for %s", imageName);
+            return rawImage;
+        }, executor);
+    }
+
+    public static List<RawImage> getRawImages(Collection<String> imageNames) {
+        return getRawImages(imageNames, DEFAULT_DELAY);
+    }
+
+    /**
+     * Fetches a batch of raw images in a single round trip, so the delay is
+     * paid once for the whole batch rather than once per image
+     *
+     * @return the raw images, in the same order as the names
+     */
+    public static List<RawImage> getRawImages(Collection<String> imageNames, long millis) {
+        // The sink may format the names later, after the caller has changed the collection
+        String batch = String.valueOf(imageNames);
+        events.log("Getting raw image data for batch %s...", batch);
+        if (!delay(millis)) {
+            return null;
+        }
+        List<RawImage> rawImages = imageNames.stream()
+                .map(imageName -> rawImage(imageName, null))
+                .collect(Collectors.toList());
+        events.log("Finished getting raw image data for batch %s", batch);
+        return rawImages;
+    }
+
     public static TransformedImage getTransformedImage(RawImage rawImage) {
         String name = rawImage.getName();
-        System.out.println(String.format("Transforming image data for %s...", name));
+        events.log("Transforming image data for %s...", name);
         if (!delay(DEFAULT_DELAY)) {
             return null;
         }
-        TransformedImage transformedImage = new TransformedImage(name, StringUtils.reverse(rawImage.getData()));
-        System.out.println(String.format("Finished transforming image data for %s", name));
+        TransformedImage transformedImage = transform(rawImage);
+        events.log("Finished transforming image data for %s", name);
         return transformedImage;
     }
 
+    /**
+     * Like getTransformedImage, waiting on a timer, and completing on the executor
+     */
+    public static CompletableFuture<TransformedImage> getTransformedImageAsync(RawImage rawImage, Executor executor) {
+        String name = rawImage.getName();
+        events.log("Transforming image data for %s...", name);
+        return delayAsync(DEFAULT_DELAY, () -> {
+            TransformedImage transformedImage = transform(rawImage);
+            events.log("Finished transforming image data for %s", name);
+            return transformedImage;
+        }, executor);
+    }
+
     public static ScaledImage getScaledImage(TransformedImage transformedImage) {
         String name = transformedImage.getName();
-        System.out.println(String.format("Resized image data for %s", name));
-        return new ScaledImage(name, StringUtils.upperCase(transformedImage.getData()));
+        events.log("Resized image data for %s", name);
+        return scale(transformedImage);
     }
 
     public static void renderImage(ScaledImage scaledImage) {
-        String name = scaledImage.getName();
+        render(scaledImage.getName(), scaledImage.getData());
+    }
+
+    /**
+     * Renders the image, releasing its payload, if pooled, as soon as its
+     * data has been read
+     */
+    public static void renderImageAndRelease(ScaledImage scaledImage) {
         String data = scaledImage.getData();
-        System.out.println(String.format("Rendering image data for %s...", name));
+        release(scaledImage.getPayload());
+        render(scaledImage.getName(), data);
+    }
+
+    private static void render(String name, String data) {
+        events.log("Rendering image data for %s...", name);
         delay((long) ((0.5 + Math.random()) * DEFAULT_DELAY));
-        System.out.println(String.format("[ %s ]", StringUtils.center(data, Math.max(24, StringUtils.length(data)))));
+        events.log("[ %s ]", StringUtils.center(data, Math.max(24, StringUtils.length(data))));
+    }
+
+    /**
+     * Like renderImage, waiting on a timer, and completing on the executor
+     */
+    public static CompletableFuture<Void> renderImageAsync(ScaledImage scaledImage, Executor executor) {
+        String name = scaledImage.getName();
+        String data = scaledImage.getData();
+        events.log("Rendering image data for %s...", name);
+        return delayAsync((long) ((0.5 + Math.random()) * DEFAULT_DELAY), () -> {
+            events.log("[ %s ]", StringUtils.center(data, Math.max(24, StringUtils.length(data))));
+            return null;
+        }, executor);
     }
 
     public static TransformedImage combineTransformedImages(TransformedImage ti1, TransformedImage ti2) {
         String name1 = ti1.getName();
         String name2 = ti2.getName();
-        System.out.println(String.format("Combining transformed data for %s and %s...", name1, name2));
+        events.log("Combining transformed data for %s and %s...", name1, name2);
         if (!delay((long) (0.1 * DEFAULT_DELAY))) {
             return null;
         }
-        return new TransformedImage(
-                StringUtils.capitalize(StringUtils.join(
-                        StringUtils.substring(name1, 0, 1),
-                        StringUtils.substring(name2, 0, 1)
-                )),
-                StringUtils.join(ti1.getData(), ti2.getData(), ' ')
-        );
+        return combine(ti1, ti2);
+    }
+
+    /**
+     * Combines the images, then releases the pooled payloads of the inputs,
+     * as the combined image holds a copy of their data. If interrupted, the
+     * inputs are left to the caller, and null is returned.
+     */
+    public static TransformedImage combineTransformedImagesAndRelease(TransformedImage ti1, TransformedImage ti2) {
+        TransformedImage combinedImage = combineTransformedImages(ti1, ti2);
+        if (combinedImage != null) {
+            release(ti1.getPayload());
+            release(ti2.getPayload());
+        }
+        return combinedImage;
+    }
+
+    /**
+     * Like combineTransformedImages, waiting on a timer, and completing on the executor
+     */
+    public static CompletableFuture<TransformedImage> combineTransformedImagesAsync(TransformedImage ti1, TransformedImage ti2,
+                                                                                    Executor executor) {
+        events.log("Combining transformed data for %s and %s...", ti1.getName(), ti2.getName());
+        return delayAsync((long) (0.1 * DEFAULT_DELAY), () -> combine(ti1, ti2), executor);
+    }
+
+    private static TransformedImage combine(TransformedImage ti1, TransformedImage ti2) {
+        String name = StringUtils.capitalize(StringUtils.join(
+                StringUtils.substring(ti1.getName(), 0, 1),
+                StringUtils.substring(ti2.getName(), 0, 1)
+        ));
+        if (!isEncodable(ti1) || !isEncodable(ti2)) {
+            return new TransformedImage(name, StringUtils.join(ti1.getData(), ti2.getData(), ' '));
+        }
+        return TransformedImage.of(name, ImagePayload.concat(ti1.getPayload(), ti2.getPayload(), ' '));
+    }
+
+    /**
+     * The image with the lower-cased name as data, in a single buffer
+     * borrowed from the pool if not null. A name that a payload cannot hold
+     * is kept as a String, and the pool is not used.
+     */
+    private static RawImage rawImage(String imageName, BufferPool pool) {
+        if (imageName == null || !ImagePayload.canEncode(imageName)) {
+            return new RawImage(imageName, StringUtils.lowerCase(imageName));
+        }
+        ImagePayload payload = (pool == null) ? ImagePayload.of(imageName) : ImagePayload.of(imageName, pool);
+        return RawImage.of(imageName, payload.toLowerCase());
+    }
+
+    private static TransformedImage transform(RawImage rawImage) {
+        if (!isEncodable(rawImage)) {
+            return new TransformedImage(rawImage.getName(), StringUtils.reverse(rawImage.getData()));
+        }
+        return TransformedImage.of(rawImage.getName(), reverse(rawImage.getPayload()));
+    }
+
+    private static ScaledImage scale(TransformedImage transformedImage) {
+        if (!isEncodable(transformedImage)) {
+            return new ScaledImage(transformedImage.getName(), StringUtils.upperCase(transformedImage.getData()));
+        }
+        return ScaledImage.of(transformedImage.getName(), upperCase(transformedImage.getPayload()));
+    }
+
+    /**
+     * Whether the image holds a payload, or data that a payload can hold, so
+     * that the payload views give the same result as the String operations
+     */
+    private static boolean isEncodable(Image image) {
+        return image.data == null || ImagePayload.canEncode(image.data);
+    }
+
+    private static void release(ImagePayload payload) {
+        if (payload != null) {
+            payload.release();
+        }
+    }
+
+    private static ImagePayload reverse(ImagePayload payload) {
+        return (payload == null) ? null : payload.reverse();
+    }
+
+    private static ImagePayload upperCase(ImagePayload payload) {
+        return (payload == null) ? null : payload.toUpperCase();
     }
 }
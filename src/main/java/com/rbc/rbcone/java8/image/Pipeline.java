@@ -0,0 +1,322 @@
+package com.rbc.rbcone.java8.image;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.rbc.rbcone.java8.util.LatencyHistogram;
+
+/**
+ * A chain of processing stages, each with its own worker threads and a
+ * bounded input queue.
+ *
+ * Every item moves on to the next stage as soon as it has been processed,
+ * independently of the other items. When a stage's queue is full, the
+ * workers of the previous stage (or the caller of submit) block until there
+ * is room, so a slow stage throttles the stages before it instead of
+ * letting work pile up in memory.
+ *
+ * Eg: fetch images hundreds wide while capping transforms at the core count:
+ * <pre>
+ * Pipeline&lt;String, ScaledImage&gt; pipeline = Pipeline.&lt;String&gt;builder()
+ *         .stage("fetch", ImageService::getRawImage, 200, 1000)
+ *         .stage("transform", ImageService::getTransformedImage, cores, 100)
+ *         .stage("scale", ImageService::getScaledImage, cores, 100)
+ *         .build();
+ * </pre>
+ *
+ * The time every item waits for each stage, and spends in it, is recorded in
+ * the stage's metrics.
+ */
+public class Pipeline<I, O> implements AutoCloseable {
+
+    private static final Item POISON = new Item(null, null);
+
+    private final List<Stage> stages;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private Pipeline(List<StageSpec> specs) {
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("A pipeline needs at least one stage.");
+        }
+        stages = new ArrayList<>();
+        for (StageSpec spec : specs) {
+            stages.add(new Stage(spec));
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            stages.get(i).start(i + 1 < stages.size() ? stages.get(i + 1) : null);
+        }
+    }
+
+    public static <T> Builder<T, T> builder() {
+        return new Builder<>(new ArrayList<>());
+    }
+
+    /**
+     * Queues the input for the first stage, blocking while its queue is full
+     *
+     * @return the output of the last stage for this input
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<O> submit(I input) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        // Held while queueing, so that close() only queues its end markers after every accepted item
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                result.completeExceptionally(new IllegalStateException("Pipeline is closed."));
+            } else {
+                Item item = new Item(input, result);
+                item.enqueuedNanos = System.nanoTime();
+                stages.get(0).queue.put(item);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return (CompletableFuture<O>) (CompletableFuture<?>) result;
+    }
+
+    /**
+     * Number of items waiting in the queue of each stage, in order
+     */
+    public int[] getQueueSizes() {
+        return stages.stream().mapToInt(stage -> stage.queue.size()).toArray();
+    }
+
+    /**
+     * Latency metrics of each stage, in order
+     */
+    public List<StageMetrics> getStageMetrics() {
+        return stages.stream().map(stage -> stage.metrics).collect(Collectors.toList());
+    }
+
+    /**
+     * Stops accepting new items, and waits for every submitted item to pass
+     * through all the stages. If interrupted while waiting, returns early
+     * with the interrupt status set.
+     */
+    @Override
+    public void close() {
+        boolean stop;
+        closeLock.writeLock().lock();
+        try {
+            stop = !closed;
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            if (stop) {
+                stages.get(0).stop();
+            }
+            stages.get(stages.size() - 1).terminated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static class Builder<I, O> {
+
+        private final List<StageSpec> specs;
+
+        private Builder(List<StageSpec> specs) {
+            this.specs = specs;
+        }
+
+        /**
+         * @param parallelism   number of items this stage processes at once
+         * @param queueCapacity number of items that may wait for this stage
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> stage(String name, Function<? super O, ? extends R> function,
+                                       int parallelism, int queueCapacity) {
+            if (parallelism < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException("Parallelism and queue capacity must be positive.");
+            }
+            List<StageSpec> next = new ArrayList<>(specs);
+            next.add(new StageSpec(name, (Function<Object, Object>) function, parallelism, queueCapacity));
+            return new Builder<>(next);
+        }
+
+        public Pipeline<I, O> build() {
+            return new Pipeline<>(specs);
+        }
+    }
+
+    public static class StageMetrics {
+
+        private final String name;
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+        private StageMetrics(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Time from an item being handed to the stage, including any time
+         * blocked while the queue was full, until a worker picks it up
+         */
+        public LatencyHistogram getQueueWait() {
+            return queueWait;
+        }
+
+        /**
+         * Time spent by a worker processing an item
+         */
+        public LatencyHistogram getServiceTime() {
+            return serviceTime;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: queue wait {%s}, service time {%s}", name, queueWait, serviceTime);
+        }
+    }
+
+    private static class StageSpec {
+        private final String name;
+        private final Function<Object, Object> function;
+        private final int parallelism;
+        private final int queueCapacity;
+
+        private StageSpec(String name, Function<Object, Object> function, int parallelism, int queueCapacity) {
+            this.name = name;
+            this.function = function;
+            this.parallelism = parallelism;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    private static class Item {
+        private Object value;
+        private final CompletableFuture<Object> result;
+        private long enqueuedNanos;
+
+        private Item(Object value, CompletableFuture<Object> result) {
+            this.value = value;
+            this.result = result;
+        }
+    }
+
+    private static class Stage {
+
+        private final StageSpec spec;
+        private final BlockingQueue<Item> queue;
+        private final AtomicInteger running;
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private final StageMetrics metrics;
+        private Stage next;
+
+        private Stage(StageSpec spec) {
+            this.spec = spec;
+            this.metrics = new StageMetrics(spec.name);
+            this.queue = new ArrayBlockingQueue<>(spec.queueCapacity);
+            this.running = new AtomicInteger(spec.parallelism);
+        }
+
+        private void start(Stage next) {
+            this.next = next;
+            for (int i = 0; i < spec.parallelism; i++) {
+                Thread t = new Thread(this::work, String.format("pipeline-%s-%d", spec.name, i));
+                t.setDaemon(true);
+                t.start();
+            }
+        }
+
+        /**
+         * Tells every worker to exit once the items queued so far are processed
+         */
+        private void stop() throws InterruptedException {
+            for (int i = 0; i < spec.parallelism; i++) {
+                queue.put(POISON);
+            }
+        }
+
+        /**
+         * Like stop, for the last worker of the stage before, even if it was
+         * interrupted: the workers of this stage, and close, wait for it
+         */
+        private void stopUninterruptibly() {
+            boolean interrupted = Thread.interrupted();
+            try {
+                int stopped = 0;
+                while (stopped < spec.parallelism) {
+                    try {
+                        queue.put(POISON);
+                        stopped++;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void work() {
+            try {
+                Item item;
+                while ((item = queue.take()) != POISON) {
+                    process(item);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (running.decrementAndGet() == 0) {
+                    terminated.countDown();
+                    if (next != null) {
+                        next.stopUninterruptibly();
+                    }
+                }
+            }
+        }
+
+        private void process(Item item) throws InterruptedException {
+            long start = System.nanoTime();
+            metrics.queueWait.record(start - item.enqueuedNanos);
+            Object output;
+            try {
+                output = spec.function.apply(item.value);
+            } catch (Throwable t) {
+                metrics.serviceTime.recordSince(start);
+                item.result.completeExceptionally(t);
+                return;
+            }
+            long end = System.nanoTime();
+            metrics.serviceTime.record(end - start);
+            if (next == null) {
+                item.result.complete(output);
+            } else {
+                item.value = output;
+                item.enqueuedNanos = end;
+                try {
+                    next.queue.put(item);
+                } catch (InterruptedException e) {
+                    item.result.completeExceptionally(e);
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+}
@@ -9,11 +9,20 @@ public class RawImage extends Image {
         super(name, data);
     }
 
+    /**
+     * An image holding the given payload rather than a String
+     */
+    public static RawImage of(String name, ImagePayload payload) {
+        RawImage rawImage = new RawImage(name, null);
+        rawImage.setPayload(payload);
+        return rawImage;
+    }
+
     @Override
     public String toString() {
         return "RawImage{" +
                 "name='" + name + '\'' +
-                ", data='" + data + '\'' +
+                ", data='" + getData() + '\'' +
                 '}';
     }
 }
\ No newline at end of file
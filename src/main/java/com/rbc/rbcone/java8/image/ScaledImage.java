@@ -9,11 +9,20 @@ public class ScaledImage extends Image {
         super(name, data);
     }
 
+    /**
+     * An image holding the given payload rather than a String
+     */
+    public static ScaledImage of(String name, ImagePayload payload) {
+        ScaledImage scaledImage = new ScaledImage(name, null);
+        scaledImage.setPayload(payload);
+        return scaledImage;
+    }
+
     @Override
     public String toString() {
         return "ScaledImage{" +
                 "name='" + name + '\'' +
-                ", data='" + data + '\'' +
+                ", data='" + getData() + '\'' +
                 '}';
     }
 }
@@ -9,11 +9,20 @@ public class TransformedImage extends Image {
         super(name, data);
     }
 
+    /**
+     * An image holding the given payload rather than a String
+     */
+    public static TransformedImage of(String name, ImagePayload payload) {
+        TransformedImage transformedImage = new TransformedImage(name, null);
+        transformedImage.setPayload(payload);
+        return transformedImage;
+    }
+
     @Override
     public String toString() {
         return "TransformedImage{" +
                 "name='" + name + '\'' +
-                ", data='" + data + '\'' +
+                ", data='" + getData() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,100 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Arbitrary precision math routines shared by the pi calculators.
+ */
+public final class BigDecimalMath {
+
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+    private static final int GUARD_DIGITS = 10;
+    private static final int SEED_DIGITS = 14;
+    private static final Runnable NO_CHECKPOINT = () -> { };
+
+    private BigDecimalMath() {
+    }
+
+    /**
+     * Computes the square root of a BigDecimal to the given scale.
+     * The reciprocal square root is found first (see {@link #inverseSqrt}),
+     * then multiplied by a, so no full precision division is ever performed.
+     */
+    public static BigDecimal sqrt(BigDecimal a, final int scale) {
+        return sqrt(a, scale, NO_CHECKPOINT);
+    }
+
+    /**
+     * Computes the square root of a BigDecimal to the given scale, running
+     * the checkpoint between the iterations; the checkpoint may throw to
+     * abandon the computation.
+     */
+    public static BigDecimal sqrt(BigDecimal a, final int scale, Runnable checkpoint) {
+        int signum = a.signum();
+        if (signum < 0) {
+            throw new ArithmeticException("Square root of a negative number.");
+        }
+        if (signum == 0) {
+            return BigDecimal.ZERO.setScale(scale);
+        }
+        MathContext mc = new MathContext(significantDigits(a, scale), RoundingMode.HALF_EVEN);
+        return a.round(mc)
+                .multiply(inverseSqrt(a, mc, checkpoint), mc)
+                .setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Computes 1/sqrt(a) to the precision of the given MathContext using the
+     * Newton iteration y' = y + y(1 - ay^2)/2, which needs no division.
+     * Every iteration roughly doubles the number of correct digits, so the
+     * working precision is doubled along with it and only the final
+     * iteration is carried out at the full precision.
+     * See https://en.wikipedia.org/wiki/Methods_of_computing_square_roots#Iterative_methods_for_reciprocal_square_roots
+     */
+    public static BigDecimal inverseSqrt(BigDecimal a, MathContext mc) {
+        return inverseSqrt(a, mc, NO_CHECKPOINT);
+    }
+
+    /**
+     * Computes 1/sqrt(a) to the precision of the given MathContext, running
+     * the checkpoint between the iterations; the checkpoint may throw to
+     * abandon the computation.
+     */
+    public static BigDecimal inverseSqrt(BigDecimal a, MathContext mc, Runnable checkpoint) {
+        if (a.signum() <= 0) {
+            throw new ArithmeticException("Reciprocal square root of a non-positive number.");
+        }
+        // Write a = m * 10^(2k), with 1 <= m < 100, so that m fits in a double
+        int k = Math.floorDiv(a.precision() - a.scale() - 1, 2);
+        BigDecimal m = a.movePointLeft(2 * k);
+
+        Deque<Integer> precisions = new ArrayDeque<>();
+        for (int p = mc.getPrecision() + 2; p > SEED_DIGITS; p = p / 2 + 2) {
+            precisions.push(p);
+        }
+
+        BigDecimal y = new BigDecimal(1 / Math.sqrt(m.doubleValue()),
+                new MathContext(SEED_DIGITS, RoundingMode.HALF_EVEN));
+        for (int p : precisions) {
+            checkpoint.run();
+            MathContext pmc = new MathContext(p, RoundingMode.HALF_EVEN);
+            BigDecimal residual = BigDecimal.ONE.subtract(m.round(pmc).multiply(y.multiply(y, pmc), pmc), pmc);
+            y = y.add(y.multiply(residual, pmc).multiply(HALF), pmc);
+        }
+        return y.movePointLeft(k).round(mc);
+    }
+
+    /**
+     * Number of significant digits needed to represent sqrt(a) to the given
+     * scale, plus guard digits.
+     */
+    private static int significantDigits(BigDecimal a, int scale) {
+        int integerDigits = Math.floorDiv(a.precision() - a.scale(), 2) + 1;
+        return Math.max(scale + integerDigits, 1) + GUARD_DIGITS;
+    }
+
+}
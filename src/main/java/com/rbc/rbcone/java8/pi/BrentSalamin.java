@@ -1,8 +1,13 @@
 package com.rbc.rbcone.java8.pi;
 
 
+import com.rbc.rbcone.java8.pi.PiCalcMetrics.Phase;
+
 import java.math.BigDecimal;
+import java.math.MathContext;
 
+import static com.rbc.rbcone.java8.pi.BigDecimalMath.inverseSqrt;
+import static com.rbc.rbcone.java8.pi.BigDecimalMath.sqrt;
 import static java.math.BigDecimal.ONE;
 
 public class BrentSalamin extends PiCalc {
@@ -18,32 +23,52 @@ public class BrentSalamin extends PiCalc {
     /**
      * Uses the Brent-Salamin formula to calculate digits of pi
      * See https://en.wikipedia.org/wiki/Gauss%E2%80%93Legendre_algorithm
+     * The square root of each iteration is recorded under the SQRT phase,
+     * and the rest of the iteration under TERM_GENERATION. Everything runs
+     * on the calling thread, so the phases only sample its allocations,
+     * keeping the cost of two phases per iteration independent of the
+     * number of threads in the JVM.
      */
     @Override
     BigDecimal computeImpl() {
         int precision = decimalDigits + 3;
         int n = numberOfIterations(decimalDigits);
 
+        metrics.setTotalTerms(n);
+
+        metrics.startPhase(Phase.SQRT, true);
         BigDecimal a = ONE;
-        BigDecimal b = ONE.divide(sqrt(BigDecimal.valueOf(2), precision), precision, ROUND);
+        BigDecimal b = inverseSqrt(TWO, new MathContext(precision + 1), this::checkCancelled).setScale(precision, ROUND);
+        metrics.finishPhase(Phase.SQRT);
         BigDecimal t = BigDecimal.valueOf(0.25);
         BigDecimal p = ONE;
+        checkCancelled();
 
         BigDecimal a_i, b_i, t_i;
 
         for (int i = 1; i <= n; i++) {
+            checkCancelled();
+            metrics.startPhase(Phase.TERM_GENERATION, true);
             a_i = a.add(b).divide(TWO, precision, ROUND);
-            b_i = sqrt(a.multiply(b), precision);
             t_i = t.subtract(p.multiply(a.subtract(a_i).pow(2)));
+            metrics.finishPhase(Phase.TERM_GENERATION);
+
+            metrics.startPhase(Phase.SQRT, true);
+            b_i = sqrt(a.multiply(b), precision, this::checkCancelled);
+            metrics.finishPhase(Phase.SQRT);
 
             a = a_i;
             b = b_i;
             t = t_i;
             p = p.add(p);
+            metrics.addCompletedTerms(1);
         }
 
-        return (a.add(b).pow(2))
+        metrics.startPhase(Phase.FINAL_DIVISION, true);
+        BigDecimal pi = (a.add(b).pow(2))
                 .divide(BigDecimal.valueOf(4).multiply(t), precision, ROUND);
+        metrics.finishPhase(Phase.FINAL_DIVISION);
+        return pi;
     }
 
     private int numberOfIterations(int d) {
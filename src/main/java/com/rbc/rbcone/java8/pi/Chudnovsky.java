@@ -1,10 +1,14 @@
 package com.rbc.rbcone.java8.pi;
 
+import com.rbc.rbcone.java8.pi.PiCalcMetrics.Phase;
+
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 
+import static com.rbc.rbcone.java8.pi.BigDecimalMath.sqrt;
+
 public class Chudnovsky extends PiCalc {
 
     private static final BigInteger C = BigInteger.valueOf(640320);
@@ -12,12 +16,22 @@ public class Chudnovsky extends PiCalc {
     private static final double DIGITS_PER_TERM =
             Math.log10(C3_OVER_24.longValueExact()) - Math.log10(72);
 
+    private final Multiplier multiplier;
+
     public Chudnovsky(int decimalDigits) {
-        super(decimalDigits);
+        this(decimalDigits, false);
     }
 
     public Chudnovsky(int decimalDigits, boolean verbose) {
+        this(decimalDigits, verbose, new NttMultiplier());
+    }
+
+    /**
+     * @param multiplier used to combine the large terms of the binary split
+     */
+    public Chudnovsky(int decimalDigits, boolean verbose, Multiplier multiplier) {
         super(decimalDigits, verbose);
+        this.multiplier = multiplier;
     }
 
     /**
@@ -28,12 +42,29 @@ public class Chudnovsky extends PiCalc {
     BigDecimal computeImpl() {
         int precision = decimalDigits + 1;
         int n = numberOfTerms(decimalDigits);
+        metrics.setTotalTerms(n);
+
+        metrics.startPhase(Phase.BINARY_SPLIT);
         Triple<BigInteger> s = ForkJoinPool.commonPool()
-                .invoke(new BinarySplit(0, n));
+                .invoke(new BinarySplit(0, n, false));
+        metrics.finishPhase(Phase.BINARY_SPLIT);
+        checkCancelled();
+
+        metrics.startPhase(Phase.SQRT);
         BigDecimal D = BigDecimal.valueOf(426880)
-                .multiply(sqrt(BigDecimal.valueOf(10005), precision));
-        return new BigDecimal(s.q).multiply(D)
+                .multiply(sqrt(BigDecimal.valueOf(10005), precision, this::checkCancelled));
+        metrics.finishPhase(Phase.SQRT);
+        checkCancelled();
+
+        metrics.startPhase(Phase.FINAL_DIVISION);
+        BigDecimal pi = new BigDecimal(s.q).multiply(D)
                 .divide(new BigDecimal(s.t), precision, ROUND);
+        metrics.finishPhase(Phase.FINAL_DIVISION);
+        return pi;
+    }
+
+    private BigInteger multiply(BigInteger x, BigInteger y) {
+        return multiplier.multiply(x, y, this::checkCancelled);
     }
 
     private int numberOfTerms(int d) {
@@ -44,12 +75,19 @@ public class Chudnovsky extends PiCalc {
     private class BinarySplit extends RecursiveTask<Triple<BigInteger>> {
 
         private static final int SEQUENTIAL_THRESHOLD = 128;
+        private static final int PARALLEL_COMBINE_THRESHOLD_BITS = 1 << 16;
         private int a;
         private int b;
+        private boolean computeP;
 
-        private BinarySplit(int a, int b) {
+        /**
+         * @param computeP whether P(a, b) is needed; it is never used at the
+         *                 root of the split, so its largest product can be skipped
+         */
+        private BinarySplit(int a, int b, boolean computeP) {
             this.a = a;
             this.b = b;
+            this.computeP = computeP;
         }
 
         private Triple<BigInteger> bs(int a, int b) {
@@ -71,34 +109,76 @@ public class Chudnovsky extends PiCalc {
                 int m = (a + b) / 2;
                 Triple<BigInteger> l = bs(a, m);
                 Triple<BigInteger> r = bs(m, b);
-                return combine(l, r);
+                return combine(l, r, true);
             }
         }
 
-        private Triple<BigInteger> combine(Triple<BigInteger> l, Triple<BigInteger> r) {
+        /**
+         * Combines the two halves with four independent multiplications. For
+         * large operands, each one is forked as its own subtask so that the
+         * top levels of the split do not run on a single core.
+         */
+        private Triple<BigInteger> combine(Triple<BigInteger> l, Triple<BigInteger> r, boolean computeP) {
+            if (Math.min(l.q.bitLength(), r.q.bitLength()) < PARALLEL_COMBINE_THRESHOLD_BITS) {
+                return new Triple<>(
+                        computeP ? multiply(l.p, r.p) : null,
+                        multiply(l.q, r.q),
+                        multiply(r.q, l.t).add(multiply(l.p, r.t))
+                );
+            }
+            Multiply p = computeP ? new Multiply(l.p, r.p) : null;
+            Multiply q = new Multiply(l.q, r.q);
+            Multiply t1 = new Multiply(r.q, l.t);
+            Multiply t2 = new Multiply(l.p, r.t);
+            if (p != null) {
+                p.fork();
+            }
+            q.fork();
+            t1.fork();
+            BigInteger t = t2.compute().add(t1.join());
             return new Triple<>(
-                    l.p.multiply(r.p),
-                    l.q.multiply(r.q),
-                    r.q.multiply(l.t).add(l.p.multiply(r.t))
+                    (p != null) ? p.join() : null,
+                    q.join(),
+                    t
             );
         }
 
         @Override
         protected Triple<BigInteger> compute() {
+            checkCancelled();
             if (b - a <= SEQUENTIAL_THRESHOLD) {
-                return bs(a, b);
+                Triple<BigInteger> s = bs(a, b);
+                metrics.addCompletedTerms(b - a);
+                return s;
             } else {
                 int m = (a + b) / 2;
-                BinarySplit left = new BinarySplit(a, m);
-                BinarySplit right = new BinarySplit(m, b);
+                BinarySplit left = new BinarySplit(a, m, true);
+                BinarySplit right = new BinarySplit(m, b, computeP);
                 right.fork();
                 Triple<BigInteger> l = left.compute();
                 Triple<BigInteger> r = right.join();
-                return combine(l, r);
+                checkCancelled();
+                return combine(l, r, computeP);
             }
         }
     }
 
+    private class Multiply extends RecursiveTask<BigInteger> {
+
+        private BigInteger x;
+        private BigInteger y;
+
+        private Multiply(BigInteger x, BigInteger y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            return multiply(x, y);
+        }
+    }
+
     private static class Triple<T> {
         private T p;
         private T q;
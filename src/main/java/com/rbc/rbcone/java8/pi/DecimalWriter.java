@@ -0,0 +1,132 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the plain decimal representation of a BigDecimal to a channel
+ * without building the whole string in memory.
+ *
+ * The digits are produced by divide and conquer radix conversion: the
+ * unscaled value is split into high and low halves by a power of ten, and
+ * each half is converted recursively, high half first, so that chunks come
+ * out in order. Only chunks of up to LEAF_DIGITS digits are ever turned into
+ * strings.
+ */
+public class DecimalWriter {
+
+    private static final int LEAF_DIGITS = 1 << 10;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * powers.get(i) = 10^(LEAF_DIGITS * 2^i)
+     */
+    private final List<BigInteger> powers = new ArrayList<>();
+
+    public DecimalWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public DecimalWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Writes the same characters as value.toPlainString() and flushes them to
+     * the underlying channel
+     */
+    public void write(BigDecimal value) throws IOException {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.signum() < 0) {
+            put('-');
+            unscaled = unscaled.negate();
+        }
+
+        int scale = value.scale();
+        if (scale <= 0) {
+            writeDigits(unscaled, digitCount(unscaled));
+            for (int i = 0; i < -scale && unscaled.signum() != 0; i++) {
+                put('0');
+            }
+        } else {
+            BigInteger[] parts = unscaled.divideAndRemainder(BigInteger.TEN.pow(scale));
+            writeDigits(parts[0], digitCount(parts[0]));
+            put('.');
+            writeDigits(parts[1], scale);
+        }
+        flush();
+    }
+
+    /**
+     * Writes x as exactly width digits, padded with leading zeros
+     */
+    private void writeDigits(BigInteger x, int width) throws IOException {
+        if (width <= LEAF_DIGITS) {
+            String digits = x.toString();
+            for (int i = digits.length(); i < width; i++) {
+                put('0');
+            }
+            for (int i = 0; i < digits.length(); i++) {
+                put(digits.charAt(i));
+            }
+            return;
+        }
+        int level = 0;
+        while ((long) LEAF_DIGITS << (level + 1) < width) {
+            level++;
+        }
+        int lowWidth = LEAF_DIGITS << level;
+        BigInteger[] parts = x.divideAndRemainder(power(level));
+        writeDigits(parts[0], width - lowWidth);
+        parts[0] = null;
+        writeDigits(parts[1], lowWidth);
+    }
+
+    private BigInteger power(int level) {
+        if (powers.isEmpty()) {
+            powers.add(BigInteger.TEN.pow(LEAF_DIGITS));
+        }
+        while (powers.size() <= level) {
+            BigInteger last = powers.get(powers.size() - 1);
+            powers.add(last.multiply(last));
+        }
+        return powers.get(level);
+    }
+
+    /**
+     * Number of decimal digits in a non-negative integer, at least 1
+     */
+    private static int digitCount(BigInteger x) {
+        if (x.signum() == 0) {
+            return 1;
+        }
+        int estimate = (int) (x.bitLength() * Math.log10(2)) + 1;
+        return (x.compareTo(BigInteger.TEN.pow(estimate - 1)) < 0) ? estimate - 1 : estimate;
+    }
+
+    private void put(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.rbc.rbcone.java8.pi;
 
+import com.rbc.rbcone.java8.pi.PiCalcMetrics.Phase;
+
 import java.math.BigDecimal;
 
 public class Machin extends PiCalc {
@@ -18,8 +20,11 @@ public class Machin extends PiCalc {
         int n_5 = numberOfTerms(5, decimalDigits);
         int n_239 = numberOfTerms(239, decimalDigits);
         BigDecimal bd_4 = new BigDecimal(4);
+        metrics.setTotalTerms(n_5 + n_239);
+        metrics.startPhase(Phase.TERM_GENERATION);
         BigDecimal term_1 = arctanRecip(5, n_5);
         BigDecimal term_2 = arctanRecip(239, n_239);
+        metrics.finishPhase(Phase.TERM_GENERATION);
         return bd_4.multiply(bd_4.multiply(term_1).subtract(term_2));
     }
 
@@ -40,6 +45,7 @@ public class Machin extends PiCalc {
         int precision = decimalDigits + 10;
         BigDecimal bd_x = new BigDecimal(x);
         BigDecimal pow = BigDecimal.ONE.divide(bd_x, precision, ROUND);
+        metrics.addCompletedTerms(1);
         if (n <= 1) {
             return pow;
         }
@@ -47,9 +53,11 @@ public class Machin extends PiCalc {
         BigDecimal result = pow;
         int c = 1;
         for (int i = 2; i <= n; i++) {
+            checkCancelled();
             c += 2;
             pow = pow.divide(sqr, precision, ROUND).negate();
             result = result.add(pow.divide(new BigDecimal(c), precision, ROUND));
+            metrics.addCompletedTerms(1);
         }
         return result;
     }
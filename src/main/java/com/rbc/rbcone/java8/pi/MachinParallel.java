@@ -1,5 +1,7 @@
 package com.rbc.rbcone.java8.pi;
 
+import com.rbc.rbcone.java8.pi.PiCalcMetrics.Phase;
+
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,8 +26,11 @@ class MachinParallel extends PiCalc {
         int n_5 = numberOfTerms(5, decimalDigits);
         int n_239 = numberOfTerms(239, decimalDigits);
         BigDecimal bd_4 = new BigDecimal(4);
+        metrics.setTotalTerms(n_5 + n_239);
+        metrics.startPhase(Phase.TERM_GENERATION);
         BigDecimal term_1 = arctanRecip(5, n_5);
         BigDecimal term_2 = arctanRecip(239, n_239);
+        metrics.finishPhase(Phase.TERM_GENERATION);
         return bd_4.multiply(bd_4.multiply(term_1).subtract(term_2));
     }
 
@@ -57,6 +62,7 @@ class MachinParallel extends PiCalc {
         SumTask sumTask;
 
         for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            checkCancelled();
             start = chunk * chunkSize + 1;
             end = Math.min(start + chunkSize - 1, n);
             dist = end - start + 1;
@@ -98,8 +104,12 @@ class MachinParallel extends PiCalc {
             return IntStream.rangeClosed(start, end)
                     .parallel()
                     .boxed()
-                    .map(i -> pows.get(i - start)
-                            .divide(new BigDecimal(i * 2 - 1), precision, ROUND))
+                    .map(i -> {
+                        checkCancelled();
+                        metrics.addCompletedTerms(1);
+                        return pows.get(i - start)
+                                .divide(new BigDecimal(i * 2 - 1), precision, ROUND);
+                    })
                     .reduce(BigDecimal::add)
                     .orElse(null);
         }
@@ -108,6 +118,7 @@ class MachinParallel extends PiCalc {
             BigDecimal pow = lastPow;
             List<BigDecimal> pows = new ArrayList<>();
             for (int i = 0; i < n; i++) {
+                checkCancelled();
                 pow = pow.divide(sqr, precision, ROUND).negate();
                 pows.add(pow);
             }
@@ -116,6 +127,7 @@ class MachinParallel extends PiCalc {
 
         @Override
         protected BigDecimal compute() {
+            checkCancelled();
             if (end - start + 1 <= SEQUENTIAL_THRESHOLD) {
                 return sumTerms(start, end, getPowers(end - start + 1, sqr, firstPow));
             } else {
@@ -0,0 +1,28 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.math.BigInteger;
+
+/**
+ * Strategy for multiplying arbitrarily large integers
+ */
+@FunctionalInterface
+public interface Multiplier {
+
+    /**
+     * Multiplies using BigInteger's own Karatsuba / Toom-Cook implementation
+     */
+    Multiplier JDK = BigInteger::multiply;
+
+    BigInteger multiply(BigInteger a, BigInteger b);
+
+    /**
+     * Multiplies, running the checkpoint first and, in implementations that
+     * split the product in steps, between the steps; the checkpoint may throw
+     * to abandon the multiplication
+     */
+    default BigInteger multiply(BigInteger a, BigInteger b, Runnable checkpoint) {
+        checkpoint.run();
+        return multiply(a, b);
+    }
+
+}
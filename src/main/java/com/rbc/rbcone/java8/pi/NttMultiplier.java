@@ -0,0 +1,265 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplies large integers with a number theoretic transform (NTT), a
+ * Schönhage-Strassen style convolution carried out over two word sized prime
+ * fields and recombined with the Chinese remainder theorem.
+ * See https://en.wikipedia.org/wiki/Sch%C3%B6nhage%E2%80%93Strassen_algorithm
+ *
+ * Operands are split into 16-bit limbs, so the largest supported product has
+ * 2^26 limbs (about 323 million decimal digits). Products smaller than the
+ * threshold, or larger than the supported size, are delegated to
+ * BigInteger.multiply.
+ */
+public class NttMultiplier implements Multiplier {
+
+    /**
+     * Operand size, in bits, above which the NTT outperforms Toom-Cook 3
+     */
+    public static final int DEFAULT_THRESHOLD_BITS = 1 << 20;
+
+    private static final int LIMB_BITS = 16;
+    private static final int LIMB_MASK = (1 << LIMB_BITS) - 1;
+    private static final int MAX_LOG_LENGTH = 26;
+
+    /**
+     * Primes of the form k * 2^26 + 1 along with a primitive root of each.
+     * Their product exceeds 2^26 * (2^16)^2, the largest possible value of
+     * a convolution coefficient.
+     */
+    private static final long P1 = 2013265921L;
+    private static final long G1 = 31;
+    private static final long P2 = 1811939329L;
+    private static final long G2 = 13;
+    private static final long P1_INV_MOD_P2 = modPow(P1 % P2, P2 - 2, P2);
+
+    private final int thresholdBits;
+
+    public NttMultiplier() {
+        this(DEFAULT_THRESHOLD_BITS);
+    }
+
+    public NttMultiplier(int thresholdBits) {
+        if (thresholdBits < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.thresholdBits = thresholdBits;
+    }
+
+    public int getThresholdBits() {
+        return thresholdBits;
+    }
+
+    @Override
+    public BigInteger multiply(BigInteger a, BigInteger b) {
+        return multiply(a, b, () -> { });
+    }
+
+    /**
+     * The checkpoint is also run between the stages of each transform
+     */
+    @Override
+    public BigInteger multiply(BigInteger a, BigInteger b, Runnable checkpoint) {
+        checkpoint.run();
+        if (Math.min(a.bitLength(), b.bitLength()) < thresholdBits
+                || a.signum() == 0 || b.signum() == 0) {
+            return a.multiply(b);
+        }
+        int[] x = toLimbs(a.abs());
+        int[] y = (a == b) ? x : toLimbs(b.abs());
+        int productLength = x.length + y.length - 1;
+        int logLength = 32 - Integer.numberOfLeadingZeros(productLength - 1);
+        if (logLength > MAX_LOG_LENGTH) {
+            return a.multiply(b);
+        }
+
+        int n = 1 << logLength;
+        ConvolveTask c1 = new ConvolveTask(x, y, n, P1, G1, checkpoint);
+        ConvolveTask c2 = new ConvolveTask(x, y, n, P2, G2, checkpoint);
+        ForkJoinTask.invokeAll(c1, c2);
+        checkpoint.run();
+
+        BigInteger product = fromResidues(c1.join(), c2.join(), productLength);
+        return (a.signum() == b.signum()) ? product : product.negate();
+    }
+
+    /**
+     * Recombines the two convolutions with Garner's algorithm and propagates
+     * the carries back into 16-bit limbs
+     */
+    private static BigInteger fromResidues(int[] r1, int[] r2, int length) {
+        byte[] magnitude = new byte[2 * length + 8];
+        int pos = magnitude.length - 1;
+        long carry = 0;
+        for (int i = 0; i < length; i++) {
+            long u = r1[i];
+            long v = (r2[i] - u % P2 + P2) % P2 * P1_INV_MOD_P2 % P2;
+            carry += u + P1 * v;
+            magnitude[pos--] = (byte) carry;
+            magnitude[pos--] = (byte) (carry >>> 8);
+            carry >>>= LIMB_BITS;
+        }
+        while (pos >= 0) {
+            magnitude[pos--] = (byte) carry;
+            carry >>>= 8;
+        }
+        return new BigInteger(1, magnitude);
+    }
+
+    private static int[] toLimbs(BigInteger a) {
+        byte[] bytes = a.toByteArray();
+        int[] limbs = new int[(bytes.length + 1) / 2];
+        for (int i = 0, pos = bytes.length - 1; i < limbs.length; i++, pos -= 2) {
+            int lo = bytes[pos] & 0xFF;
+            int hi = (pos > 0) ? bytes[pos - 1] & 0xFF : 0;
+            limbs[i] = (hi << 8) | lo;
+        }
+        return limbs;
+    }
+
+    private static long modPow(long base, long exp, long mod) {
+        long result = 1;
+        base %= mod;
+        while (exp > 0) {
+            if ((exp & 1) != 0) {
+                result = result * base % mod;
+            }
+            base = base * base % mod;
+            exp >>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the cyclic convolution of x and y modulo a single prime
+     */
+    private static class ConvolveTask extends RecursiveTask<int[]> {
+
+        private final int[] x;
+        private final int[] y;
+        private final int n;
+        private final long p;
+        private final long g;
+        private final Runnable checkpoint;
+
+        private ConvolveTask(int[] x, int[] y, int n, long p, long g, Runnable checkpoint) {
+            this.x = x;
+            this.y = y;
+            this.n = n;
+            this.p = p;
+            this.g = g;
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        protected int[] compute() {
+            long root = modPow(g, (p - 1) / n, p);
+            Twiddles twiddles = new Twiddles(root);
+
+            int[] fx = new int[n];
+            System.arraycopy(x, 0, fx, 0, x.length);
+            forward(fx, twiddles);
+            int[] fy = fx;
+            if (y != x) {
+                fy = new int[n];
+                System.arraycopy(y, 0, fy, 0, y.length);
+                forward(fy, twiddles);
+            }
+
+            // Scale by 1/n while multiplying pointwise
+            long nInverse = modPow(n, p - 2, p);
+            for (int i = 0; i < n; i++) {
+                fx[i] = (int) ((long) fx[i] * fy[i] % p * nInverse % p);
+            }
+
+            inverse(fx, new Twiddles(modPow(root, p - 2, p)));
+            return fx;
+        }
+
+        /**
+         * Decimation in frequency transform, from natural to bit-reversed order
+         */
+        private void forward(int[] a, Twiddles twiddles) {
+            for (int len = n; len >= 2; len >>= 1) {
+                checkpoint.run();
+                int half = len >> 1;
+                for (int i = 0; i < n; i += len) {
+                    for (int j = i, k = half; j < i + half; j++, k++) {
+                        long u = a[j];
+                        long v = a[j + half];
+                        long sum = u + v;
+                        long diff = u - v;
+                        a[j] = (int) (sum >= p ? sum - p : sum);
+                        a[j + half] = (int) twiddles.multiply(diff < 0 ? diff + p : diff, k);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Decimation in time transform, from bit-reversed to natural order
+         */
+        private void inverse(int[] a, Twiddles twiddles) {
+            for (int len = 2; len <= n; len <<= 1) {
+                checkpoint.run();
+                int half = len >> 1;
+                for (int i = 0; i < n; i += len) {
+                    for (int j = i, k = half; j < i + half; j++, k++) {
+                        long u = a[j];
+                        long v = twiddles.multiply(a[j + half], k);
+                        long sum = u + v;
+                        long diff = u - v;
+                        a[j] = (int) (sum >= p ? sum - p : sum);
+                        a[j + half] = (int) (diff < 0 ? diff + p : diff);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Powers of the roots of unity used by each butterfly stage, laid out
+         * so that the stage with half length h reads entries h .. 2h - 1 in
+         * order, with entry h + j holding w^(jn/2h). Each power is paired with
+         * floor(w * 2^32 / p) so that multiplying by it needs no division
+         * (Shoup's modular multiplication).
+         */
+        private class Twiddles {
+
+            private final int[] powers;
+            private final long[] quotients;
+
+            private Twiddles(long w) {
+                powers = new int[Math.max(n, 2)];
+                quotients = new long[powers.length];
+                int half = powers.length / 2;
+                long t = 1;
+                for (int j = 0; j < half; j++) {
+                    powers[half + j] = (int) t;
+                    t = t * w % p;
+                }
+                for (int h = half / 2; h >= 1; h >>= 1) {
+                    for (int j = 0; j < h; j++) {
+                        powers[h + j] = powers[2 * h + 2 * j];
+                    }
+                }
+                for (int i = 1; i < powers.length; i++) {
+                    quotients[i] = ((long) powers[i] << 32) / p;
+                }
+            }
+
+            /**
+             * Computes a * w^k mod p, for 0 <= a < p
+             */
+            private long multiply(long a, int k) {
+                long q = (a * quotients[k]) >>> 32;
+                long r = a * powers[k] - q * p;
+                return r >= p ? r - p : r;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+import static com.rbc.rbcone.java8.pi.PiCalc.ROUND;
+
+/**
+ * Thread-safe cache of computed values of pi, keyed by number of decimal digits.
+ *
+ * A request is served by truncating any completed or in-flight computation of
+ * at least as many digits, so only requests for a higher precision than any
+ * seen so far trigger a new computation. Concurrent requests for the same
+ * precision share one CompletableFuture.
+ *
+ * Once a computation completes, cached values of lower precision are dropped,
+ * and the highest precision value is truncated if needed so that it fits the
+ * memory budget.
+ *
+ * Given a file, the cache also keeps its most precise value on disk (see
+ * PiDigitStore), and maps it back when created, so that the digits computed
+ * before a restart are served without computing them again. Values read
+ * from the file are cached like computed ones, and the file is written
+ * after the computation's future has completed, on a writer thread of its
+ * own and without holding the lock that completions take, so requests never
+ * wait for the disk.
+ */
+class PiCache {
+
+    static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+    private static final double BITS_PER_DIGIT = Math.log(10) / Math.log(2);
+
+    /**
+     * Writes the files of all the caches, one at a time, off the compute workers
+     */
+    private static final Executor WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pi-cache-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final IntFunction<? extends PiCalc> factory;
+    private final long memoryBudget;
+    private final Executor executor;
+    private final ConcurrentNavigableMap<Integer, CompletableFuture<BigDecimal>> entries =
+            new ConcurrentSkipListMap<>();
+    private final Path file;
+    private final Executor writer;
+    private final Object saveLock = new Object();
+    private volatile PiDigitStore store;
+
+    PiCache(IntFunction<? extends PiCalc> factory) {
+        this(factory, DEFAULT_MEMORY_BUDGET, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param factory      creates a pi calculator for the given number of digits
+     * @param memoryBudget approximate number of bytes that cached values may occupy
+     * @param executor     runs the computations
+     */
+    PiCache(IntFunction<? extends PiCalc> factory, long memoryBudget, Executor executor) {
+        this(factory, memoryBudget, executor, null);
+    }
+
+    /**
+     * @param file where the most precise value computed is kept, or null.
+     *             If the file exists but is not valid, it is ignored, and
+     *             replaced after the next computation.
+     */
+    PiCache(IntFunction<? extends PiCalc> factory, long memoryBudget, Executor executor, Path file) {
+        this(factory, memoryBudget, executor, file, WRITER);
+    }
+
+    /**
+     * @param writer writes the file
+     */
+    PiCache(IntFunction<? extends PiCalc> factory, long memoryBudget, Executor executor, Path file,
+            Executor writer) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative.");
+        }
+        this.factory = factory;
+        this.memoryBudget = memoryBudget;
+        this.executor = executor;
+        this.file = file;
+        this.writer = writer;
+        if (file != null && Files.exists(file)) {
+            try {
+                store = PiDigitStore.map(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    BigDecimal compute(int decimalDigits) {
+        return computeAsync(decimalDigits).join();
+    }
+
+    CompletableFuture<BigDecimal> computeAsync(int decimalDigits) {
+        if (decimalDigits < 0) {
+            throw new IllegalArgumentException("Number of decimal digits must not be negative.");
+        }
+        Map.Entry<Integer, CompletableFuture<BigDecimal>> entry = entries.ceilingEntry(decimalDigits);
+        if (entry != null && !entry.getValue().isCompletedExceptionally()) {
+            return truncate(entry.getValue(), decimalDigits);
+        }
+
+        CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+        CompletableFuture<BigDecimal> existing = entries.putIfAbsent(decimalDigits, future);
+        if (existing != null) {
+            return truncate(existing, decimalDigits);
+        }
+
+        PiDigitStore stored = store;
+        if (stored != null && decimalDigits <= stored.getDecimalDigits()) {
+            CompletableFuture.supplyAsync(() -> stored.toBigDecimal(decimalDigits), executor)
+                    .whenComplete((result, throwable) -> complete(decimalDigits, future, result, throwable));
+            return future;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            PiCalc piCalc;
+            BigDecimal result;
+            try {
+                piCalc = factory.apply(decimalDigits);
+                result = piCalc.compute();
+            } catch (Throwable t) {
+                complete(decimalDigits, future, null, t);
+                return;
+            }
+            complete(decimalDigits, future, result, null);
+            if (file != null) {
+                writer.execute(() -> save(piCalc.getClass().getSimpleName(), result));
+            }
+        }, executor);
+        return future;
+    }
+
+    private void complete(int decimalDigits, CompletableFuture<BigDecimal> future, BigDecimal result,
+                          Throwable throwable) {
+        if (throwable != null) {
+            entries.remove(decimalDigits, future);
+            future.completeExceptionally(throwable);
+        } else {
+            evict(decimalDigits);
+            future.complete(result);
+        }
+    }
+
+    /**
+     * Number of digits of the most precise value held by the cache, or -1
+     */
+    int getMaxDigits() {
+        int maxDigits = entries.descendingMap().entrySet().stream()
+                .filter(entry -> !entry.getValue().isCompletedExceptionally())
+                .mapToInt(Map.Entry::getKey)
+                .findFirst()
+                .orElse(-1);
+        PiDigitStore stored = store;
+        return (stored == null) ? maxDigits : Math.max(maxDigits, stored.getDecimalDigits());
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Replaces the file with the value, if it is more precise than the one
+     * already there. A failure to write it is reported but does not fail the
+     * computation. Locks saveLock rather than the cache, so that evict does
+     * not wait for the disk.
+     */
+    private void save(String algorithm, BigDecimal pi) {
+        synchronized (saveLock) {
+            PiDigitStore stored = store;
+            if (file == null || (stored != null && stored.getDecimalDigits() >= pi.scale())) {
+                return;
+            }
+            try {
+                store = PiDigitStore.write(file, algorithm, pi);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Approximate number of bytes occupied by a value of pi with the given
+     * number of decimal digits
+     */
+    static long sizeOf(int decimalDigits) {
+        return (long) (decimalDigits * BITS_PER_DIGIT / 8) + 64;
+    }
+
+    /**
+     * Drops values made redundant by a more precise one and enforces the
+     * memory budget, treating the computation of the given number of digits
+     * as completed
+     */
+    private synchronized void evict(int completedDigits) {
+        Integer largest = null;
+        for (Integer digits : entries.descendingKeySet()) {
+            CompletableFuture<BigDecimal> future = entries.get(digits);
+            if (future == null || (digits != completedDigits && !isCompletedNormally(future))) {
+                continue;
+            }
+            if (largest == null) {
+                largest = digits;
+            } else {
+                entries.remove(digits, future);
+            }
+        }
+        if (largest == null || sizeOf(largest) <= memoryBudget) {
+            return;
+        }
+
+        CompletableFuture<BigDecimal> future = entries.remove(largest);
+        int budgetDigits = (int) Math.min(Math.ceil(memoryBudget * 8 / BITS_PER_DIGIT), Integer.MAX_VALUE);
+        while (budgetDigits >= 0 && sizeOf(budgetDigits) > memoryBudget) {
+            budgetDigits--;
+        }
+        if (future != null && budgetDigits >= 0) {
+            entries.putIfAbsent(budgetDigits, truncate(future, budgetDigits));
+        }
+    }
+
+    private static CompletableFuture<BigDecimal> truncate(CompletableFuture<BigDecimal> future, int decimalDigits) {
+        return future.thenApply(pi -> pi.scale() == decimalDigits ? pi : pi.setScale(decimalDigits, ROUND));
+    }
+
+    private static boolean isCompletedNormally(CompletableFuture<?> future) {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+}
@@ -1,6 +1,12 @@
 package com.rbc.rbcone.java8.pi;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 abstract class PiCalc {
 
@@ -9,6 +15,8 @@ abstract class PiCalc {
 
     int decimalDigits;
     boolean verbose;
+    final PiCalcMetrics metrics = new PiCalcMetrics();
+    private final AtomicReference<CompletableFuture<BigDecimal>> pending = new AtomicReference<>();
 
     PiCalc(int decimalDigits) {
         this(decimalDigits, false);
@@ -28,29 +36,86 @@ abstract class PiCalc {
             className = this.getClass().getSimpleName();
             System.out.println(String.format("%s has started computing...", className));
         }
-        BigDecimal result = this.computeImpl().setScale(decimalDigits, ROUND);
+        metrics.reset();
+        BigDecimal result;
+        try {
+            result = this.computeImpl().setScale(decimalDigits, ROUND);
+        } finally {
+            metrics.abortPhase();
+        }
         if (this.verbose) {
             System.out.println(String.format("%s has finished computing", className));
         }
         return result;
     }
 
-    abstract BigDecimal computeImpl();
+    /**
+     * Computes pi and streams its digits to the given channel, without
+     * converting the whole result to a String
+     */
+    void compute(WritableByteChannel channel) throws IOException {
+        BigDecimal result = compute();
+        metrics.startPhase(PiCalcMetrics.Phase.RADIX_CONVERSION);
+        try {
+            new DecimalWriter(channel).write(result);
+        } finally {
+            metrics.finishPhase(PiCalcMetrics.Phase.RADIX_CONVERSION);
+        }
+    }
 
     /**
-     * Computes the square root of a BigDecimal to the given scale using the
-     * Babylonian method (https://en.wikipedia.org/wiki/Methods_of_computing_square_roots)
+     * Progress and phase timings of the current, or last, computation
      */
-    static BigDecimal sqrt(BigDecimal a, final int scale) {
-        BigDecimal x0 = BigDecimal.ZERO;
-        BigDecimal x1 = new BigDecimal(Math.sqrt(a.doubleValue()));
-        while (!x0.equals(x1)) {
-            x0 = x1;
-            x1 = a.divide(x0, scale, BigDecimal.ROUND_HALF_UP)
-                    .add(x0)
-                    .divide(TWO, scale, BigDecimal.ROUND_HALF_UP);
-        }
-        return x1;
+    PiCalcMetrics getMetrics() {
+        return metrics;
     }
 
+    /**
+     * Computes pi on the given executor. Cancelling (or otherwise completing)
+     * the returned future stops the computation at its next check point,
+     * freeing the threads it was using.
+     * Only one asynchronous computation per instance may be pending at a time.
+     *
+     * @throws IllegalStateException if another one is pending
+     */
+    CompletableFuture<BigDecimal> computeAsync(Executor executor) {
+        CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+        if (!pending.compareAndSet(null, future)) {
+            throw new IllegalStateException("A computation is already pending.");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(compute());
+                } catch (CancellationException e) {
+                    if (this.verbose) {
+                        System.out.println(String.format("%s has been cancelled", this.getClass().getSimpleName()));
+                    }
+                    future.cancel(false);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    pending.compareAndSet(future, null);
+                }
+            });
+        } catch (Throwable t) {
+            pending.compareAndSet(future, null);
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
+    /**
+     * Called periodically by computeImpl, this throws a CancellationException
+     * if the pending asynchronous computation is no longer wanted
+     */
+    void checkCancelled() {
+        CompletableFuture<BigDecimal> future = pending.get();
+        if (future != null && future.isDone()) {
+            throw new CancellationException();
+        }
+    }
+
+    abstract BigDecimal computeImpl();
+
 }
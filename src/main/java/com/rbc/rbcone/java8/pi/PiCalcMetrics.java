@@ -0,0 +1,202 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress and per-phase timings of a PiCalc computation.
+ *
+ * The counters are safe to read from any thread while the computation is
+ * running, so they can be polled by a monitoring system. Phase changes can
+ * also be observed by registering a Listener.
+ *
+ * Term progress is counted with a LongAdder and costs no allocation on the
+ * hot path. Elapsed time and allocated bytes are only sampled when a phase
+ * starts or finishes; allocated bytes are summed across all live threads in
+ * the JVM (the phases fork work onto pool threads), so they include any
+ * concurrent activity, and are 0 when the JVM cannot measure them. That scan
+ * grows with the number of threads, so phases that run entirely on the
+ * calling thread, and are recorded often, such as the steps of each
+ * BrentSalamin iteration, can be started with callingThreadOnly to sample
+ * that thread's counter alone.
+ */
+public class PiCalcMetrics {
+
+    public enum Phase {
+        TERM_GENERATION,
+        BINARY_SPLIT,
+        SQRT,
+        FINAL_DIVISION,
+        RADIX_CONVERSION
+    }
+
+    public interface Listener {
+
+        default void phaseStarted(Phase phase) {
+        }
+
+        default void phaseFinished(Phase phase, long elapsedNanos, long allocatedBytes) {
+        }
+    }
+
+    private static final int PHASE_COUNT = Phase.values().length;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final AtomicLongArray elapsedNanos = new AtomicLongArray(PHASE_COUNT);
+    private final AtomicLongArray allocatedBytes = new AtomicLongArray(PHASE_COUNT);
+    private final AtomicLongArray startNanos = new AtomicLongArray(PHASE_COUNT);
+    private final AtomicLongArray startAllocatedBytes = new AtomicLongArray(PHASE_COUNT);
+
+    /**
+     * Whether each phase in progress samples the calling thread only, only
+     * used by the thread computing the phase
+     */
+    private final boolean[] callingThreadOnly = new boolean[PHASE_COUNT];
+    private final LongAdder completedTerms = new LongAdder();
+    private volatile long totalTerms;
+    private volatile Phase currentPhase;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The phase in progress, or null when not computing
+     */
+    public Phase getCurrentPhase() {
+        return currentPhase;
+    }
+
+    public long getTotalTerms() {
+        return totalTerms;
+    }
+
+    public long getCompletedTerms() {
+        return completedTerms.sum();
+    }
+
+    /**
+     * Fraction of terms (or iterations) computed so far, between 0 and 1
+     */
+    public double getProgress() {
+        long total = totalTerms;
+        return (total == 0) ? 0 : Math.min(1.0, (double) getCompletedTerms() / total);
+    }
+
+    /**
+     * Total time spent in the phase, including the time so far if it is in progress
+     */
+    public long getElapsedNanos(Phase phase) {
+        long elapsed = elapsedNanos.get(phase.ordinal());
+        if (currentPhase == phase) {
+            elapsed += System.nanoTime() - startNanos.get(phase.ordinal());
+        }
+        return elapsed;
+    }
+
+    public long getAllocatedBytes(Phase phase) {
+        return allocatedBytes.get(phase.ordinal());
+    }
+
+    void reset() {
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            elapsedNanos.set(i, 0);
+            allocatedBytes.set(i, 0);
+        }
+        completedTerms.reset();
+        totalTerms = 0;
+        currentPhase = null;
+    }
+
+    void setTotalTerms(long terms) {
+        totalTerms = terms;
+    }
+
+    void addCompletedTerms(long terms) {
+        completedTerms.add(terms);
+    }
+
+    void startPhase(Phase phase) {
+        startPhase(phase, false);
+    }
+
+    /**
+     * @param callingThreadOnly whether the phase runs entirely on the calling
+     *                          thread, which then finishes it, so that only
+     *                          its allocations need to be sampled
+     */
+    void startPhase(Phase phase, boolean callingThreadOnly) {
+        int i = phase.ordinal();
+        this.callingThreadOnly[i] = callingThreadOnly;
+        startAllocatedBytes.set(i, allocatedBytes(callingThreadOnly));
+        startNanos.set(i, System.nanoTime());
+        currentPhase = phase;
+        for (Listener listener : listeners) {
+            listener.phaseStarted(phase);
+        }
+    }
+
+    void finishPhase(Phase phase) {
+        int i = phase.ordinal();
+        long elapsed = System.nanoTime() - startNanos.get(i);
+        long allocated = Math.max(0, allocatedBytes(callingThreadOnly[i]) - startAllocatedBytes.get(i));
+        elapsedNanos.addAndGet(i, elapsed);
+        allocatedBytes.addAndGet(i, allocated);
+        currentPhase = null;
+        for (Listener listener : listeners) {
+            listener.phaseFinished(phase, elapsed, allocated);
+        }
+    }
+
+    /**
+     * Ends the current phase, if any, without recording it
+     */
+    void abortPhase() {
+        currentPhase = null;
+    }
+
+    private static long allocatedBytes(boolean callingThreadOnly) {
+        if (!(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+        if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) {
+            return 0;
+        }
+        if (callingThreadOnly) {
+            return Math.max(0, bean.getThreadAllocatedBytes(Thread.currentThread().getId()));
+        }
+        long total = 0;
+        for (long bytes : bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PiCalcMetrics{")
+                .append("currentPhase=").append(currentPhase)
+                .append(", completedTerms=").append(getCompletedTerms())
+                .append(", totalTerms=").append(totalTerms);
+        for (Phase phase : Phase.values()) {
+            sb.append(", ").append(phase).append("={elapsedMs=")
+                    .append(getElapsedNanos(phase) / 1_000_000)
+                    .append(", allocatedBytes=").append(getAllocatedBytes(phase))
+                    .append('}');
+        }
+        return sb.append('}').toString();
+    }
+
+}
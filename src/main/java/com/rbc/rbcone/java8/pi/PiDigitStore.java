@@ -0,0 +1,332 @@
+package com.rbc.rbcone.java8.pi;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * File of the digits of a computed value of pi, packed 19 decimal digits to
+ * a long, about 2.4 times smaller than the same digits as text.
+ *
+ * The file starts with a 64 byte header:
+ * <pre>
+ *  0  magic "PIDIGITS"
+ *  8  format version
+ * 12  number of decimal digits, ie the scale of the value
+ * 16  number of digits of the unscaled value, eg 3 followed by the decimals
+ * 20  CRC32 of the packed digits
+ * 24  name of the algorithm that computed the value, up to 32 ASCII bytes
+ * 56  reserved
+ * 60  CRC32 of the 60 bytes above
+ * </pre>
+ * followed by the digits of the unscaled value, most significant first, in
+ * big-endian longs of 19 digits each, read as unsigned (10^19 - 1 is more
+ * than Long.MAX_VALUE); the last long holds the remaining 1 to 19 digits.
+ *
+ * A file is read through a memory mapping, so opening one only costs its
+ * checksums; single digits are read straight from the mapping, and a value
+ * is only converted back to a BigDecimal, up to the requested precision,
+ * when asked for.
+ */
+class PiDigitStore {
+
+    static final int DIGITS_PER_LONG = 19;
+    static final int HEADER_SIZE = 64;
+
+    private static final long MAGIC = 0x5049444947495453L;
+    private static final int VERSION = 1;
+    private static final int ALGORITHM_OFFSET = 24;
+    private static final int MAX_ALGORITHM_LENGTH = 32;
+    private static final int HEADER_CRC_OFFSET = 60;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final long[] POWERS_OF_TEN = new long[DIGITS_PER_LONG];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final String algorithm;
+    private final int decimalDigits;
+    private final int digitCount;
+    private final LongBuffer groups;
+
+    private PiDigitStore(String algorithm, int decimalDigits, int digitCount, LongBuffer groups) {
+        this.algorithm = algorithm;
+        this.decimalDigits = decimalDigits;
+        this.digitCount = digitCount;
+        this.groups = groups;
+    }
+
+    /**
+     * Writes the value to the file, replacing it atomically, and maps the result
+     */
+    static PiDigitStore write(Path path, String algorithm, BigDecimal pi) throws IOException {
+        if (pi.signum() < 0 || pi.scale() < 0) {
+            throw new IllegalArgumentException("Value must be positive, with a non-negative scale.");
+        }
+        byte[] algorithmBytes = algorithm.getBytes(StandardCharsets.US_ASCII);
+        if (algorithmBytes.length > MAX_ALGORITHM_LENGTH) {
+            throw new IllegalArgumentException(String.format("Algorithm name is longer than %d characters.", MAX_ALGORITHM_LENGTH));
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            DigitPacker packer = new DigitPacker(channel);
+            new DecimalWriter(packer).write(pi);
+            packer.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(pi.scale())
+                    .putInt(packer.digitCount)
+                    .putInt((int) packer.crc.getValue())
+                    .put(algorithmBytes);
+            CRC32 headerCrc = new CRC32();
+            headerCrc.update(header.array(), 0, HEADER_CRC_OFFSET);
+            header.putInt(HEADER_CRC_OFFSET, (int) headerCrc.getValue());
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return map(path);
+    }
+
+    /**
+     * Maps the file, checking its header and the checksum of its digits
+     *
+     * @throws IOException if the file cannot be read, or is not a valid digit file
+     */
+    static PiDigitStore map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(String.format("%s is too short to be a pi digit file", path));
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            CRC32 headerCrc = new CRC32();
+            ByteBuffer header = buffer.duplicate();
+            header.limit(HEADER_CRC_OFFSET);
+            headerCrc.update(header);
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(HEADER_CRC_OFFSET) != (int) headerCrc.getValue()) {
+                throw new IOException(String.format("%s does not have a valid pi digit file header", path));
+            }
+            if (buffer.getInt(8) != VERSION) {
+                throw new IOException(String.format("%s has unsupported version %d", path, buffer.getInt(8)));
+            }
+            int decimalDigits = buffer.getInt(12);
+            int digitCount = buffer.getInt(16);
+            long payloadSize = (long) groupCount(digitCount) * Long.BYTES;
+            if (decimalDigits < 0 || digitCount <= decimalDigits || channel.size() != HEADER_SIZE + payloadSize) {
+                throw new IOException(String.format("%s does not hold the number of digits its header records", path));
+            }
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(HEADER_SIZE);
+            CRC32 payloadCrc = new CRC32();
+            payloadCrc.update(payload.slice());
+            if (buffer.getInt(20) != (int) payloadCrc.getValue()) {
+                throw new IOException(String.format("%s has corrupt digits", path));
+            }
+
+            byte[] algorithmBytes = new byte[MAX_ALGORITHM_LENGTH];
+            ByteBuffer algorithm = buffer.duplicate();
+            algorithm.position(ALGORITHM_OFFSET);
+            algorithm.get(algorithmBytes);
+            int length = 0;
+            while (length < algorithmBytes.length && algorithmBytes[length] != 0) {
+                length++;
+            }
+            return new PiDigitStore(new String(algorithmBytes, 0, length, StandardCharsets.US_ASCII),
+                    decimalDigits, digitCount, payload.slice().asLongBuffer());
+        }
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    int getDecimalDigits() {
+        return decimalDigits;
+    }
+
+    /**
+     * Digit at the given index of the unscaled value, eg 3 at index 0, then
+     * the decimals
+     */
+    int digitAt(int index) {
+        if (index < 0 || index >= digitCount) {
+            throw new IndexOutOfBoundsException(String.format("Invalid digit index %d", index));
+        }
+        int group = index / DIGITS_PER_LONG;
+        int width = groupWidth(group);
+        long shifted = Long.divideUnsigned(groups.get(group), POWERS_OF_TEN[width - 1 - index % DIGITS_PER_LONG]);
+        return (int) Long.remainderUnsigned(shifted, 10);
+    }
+
+    BigDecimal toBigDecimal() {
+        return toBigDecimal(decimalDigits);
+    }
+
+    /**
+     * The value truncated to the given number of decimal digits. Only the
+     * digits needed are converted.
+     */
+    BigDecimal toBigDecimal(int decimalDigits) {
+        if (decimalDigits < 0 || decimalDigits > this.decimalDigits) {
+            throw new IllegalArgumentException(String.format("Number of decimal digits must be between 0 and %d.",
+                    this.decimalDigits));
+        }
+        int digits = digitCount - this.decimalDigits + decimalDigits;
+        int fullGroups = digits / DIGITS_PER_LONG;
+        int remainder = digits % DIGITS_PER_LONG;
+
+        List<BigInteger> powers = new ArrayList<>();
+        BigInteger unscaled = (fullGroups == 0) ? BigInteger.ZERO : combine(0, fullGroups, powers);
+        if (remainder > 0) {
+            long partial = Long.divideUnsigned(groups.get(fullGroups), POWERS_OF_TEN[groupWidth(fullGroups) - remainder]);
+            unscaled = unscaled.multiply(BigInteger.valueOf(POWERS_OF_TEN[remainder])).add(BigInteger.valueOf(partial));
+        }
+        return new BigDecimal(unscaled, decimalDigits);
+    }
+
+    /**
+     * Converts the full groups from (inclusive) to (exclusive) to an integer,
+     * splitting them in a high and a low part whose size is a power of 2, so
+     * that the powers of ten used to join the parts can be shared
+     *
+     * @param powers powers.get(i) = 10^(19 * 2^i), filled as needed
+     */
+    private BigInteger combine(int from, int to, List<BigInteger> powers) {
+        int count = to - from;
+        if (count == 1) {
+            return unsigned(groups.get(from));
+        }
+        int level = 31 - Integer.numberOfLeadingZeros(count - 1);
+        int lowCount = 1 << level;
+        BigInteger high = combine(from, to - lowCount, powers);
+        BigInteger low = combine(to - lowCount, to, powers);
+        return high.multiply(power(level, powers)).add(low);
+    }
+
+    private static BigInteger power(int level, List<BigInteger> powers) {
+        if (powers.isEmpty()) {
+            powers.add(BigInteger.TEN.pow(DIGITS_PER_LONG));
+        }
+        while (powers.size() <= level) {
+            BigInteger last = powers.get(powers.size() - 1);
+            powers.add(last.multiply(last));
+        }
+        return powers.get(level);
+    }
+
+    private static BigInteger unsigned(long value) {
+        BigInteger result = BigInteger.valueOf(value & Long.MAX_VALUE);
+        return (value < 0) ? result.setBit(Long.SIZE - 1) : result;
+    }
+
+    /**
+     * Number of digits held by the given group
+     */
+    private int groupWidth(int group) {
+        return (group == groupCount(digitCount) - 1) ? digitCount - group * DIGITS_PER_LONG : DIGITS_PER_LONG;
+    }
+
+    private static int groupCount(int digitCount) {
+        return (digitCount + DIGITS_PER_LONG - 1) / DIGITS_PER_LONG;
+    }
+
+    /**
+     * Receives the characters written by a DecimalWriter, and writes their
+     * digits to the channel in longs of 19 digits each, skipping the point
+     */
+    private static class DigitPacker implements WritableByteChannel {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        private long group;
+        private int groupDigits;
+        private int digitCount;
+
+        private DigitPacker(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = src.remaining();
+            while (src.hasRemaining()) {
+                byte c = src.get();
+                if (c == '.') {
+                    continue;
+                }
+                group = group * 10 + (c - '0');
+                digitCount++;
+                if (++groupDigits == DIGITS_PER_LONG) {
+                    putGroup();
+                }
+            }
+            return written;
+        }
+
+        /**
+         * Writes the last, possibly partial, group and the buffered longs
+         */
+        private void finish() throws IOException {
+            if (groupDigits > 0) {
+                putGroup();
+            }
+            flush();
+        }
+
+        private void putGroup() throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                flush();
+            }
+            buffer.putLong(group);
+            group = 0;
+            groupDigits = 0;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.rbc.rbcone.java8.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor that resizes its thread pool to the work it is given, instead of
+ * relying on a fixed size picked up front.
+ *
+ * Each task's wall-clock and CPU time is measured. Every adjustment
+ * interval, the pool is resized to the smaller of:
+ * <ul>
+ * <li>the number of threads needed to keep up with the tasks, by Little's
+ * law: the rate at which tasks arrive, plus the rate needed to clear the
+ * queue within one interval, times the average time a task takes</li>
+ * <li>the number of threads that keeps the cores busy without
+ * oversubscribing them: cores * (1 + wait time / compute time). With more
+ * threads than cores, part of a task's wall-clock time is spent waiting for
+ * a core rather than for I/O; that share is left out of the wait time.</li>
+ * </ul>
+ * So a batch of fetches, which mostly wait, scales out to as many threads as
+ * there are fetches in flight, while a batch of transforms stays close to
+ * the core count. The pool grows straight to its target but shrinks by half
+ * the difference at a time, and doubles while its threads are all busy with
+ * tasks that have not completed yet.
+ *
+ * CPU time is only measured if thread CPU time measurement is already
+ * enabled in the JVM, as it is by default on HotSpot: this class does not
+ * change that JVM-wide setting. Without it, the pool is sized by Little's
+ * law alone, up to maxThreads.
+ */
+public class AdaptiveExecutor implements Executor, AutoCloseable {
+
+    public static final long DEFAULT_ADJUST_INTERVAL_MILLIS = 100;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_ENABLED = isCpuTimeEnabled();
+
+    private final String name;
+    private final int minThreads;
+    private final int maxThreads;
+    private final int cores = Runtime.getRuntime().availableProcessors();
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService timer;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private long lastAdjustNanos = System.nanoTime();
+    private volatile double waitComputeRatio;
+
+    public AdaptiveExecutor(String name, int minThreads, int maxThreads) {
+        this(name, minThreads, maxThreads, DEFAULT_ADJUST_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param name                 prefix of the thread names
+     * @param minThreads           number of threads to start with, and to keep when idle
+     * @param maxThreads           largest number of threads to grow to
+     * @param adjustIntervalMillis time between two resizes
+     */
+    public AdaptiveExecutor(String name, int minThreads, int maxThreads, long adjustIntervalMillis) {
+        if (minThreads < 1 || maxThreads < minThreads || adjustIntervalMillis < 1) {
+            throw new IllegalArgumentException("Thread counts and interval must be positive, and min at most max.");
+        }
+        this.name = name;
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(minThreads, minThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, String.format("%s-%d", name, threadCount.getAndIncrement()));
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, String.format("%s-resizer", name));
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(this::adjust, adjustIntervalMillis, adjustIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submittedCount.increment();
+        pool.execute(() -> {
+            long wallStart = System.nanoTime();
+            long cpuStart = cpuTime();
+            try {
+                command.run();
+            } finally {
+                cpuNanos.add(cpuTime() - cpuStart);
+                wallNanos.add(System.nanoTime() - wallStart);
+                completedCount.increment();
+            }
+        });
+    }
+
+    /**
+     * Number of threads the pool was last resized to, which it may run at
+     * most. Fewer may be running, until there are tasks for them.
+     */
+    public int getTargetPoolSize() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Largest number of threads that have been running at once
+     */
+    public int getLargestPoolSize() {
+        return pool.getLargestPoolSize();
+    }
+
+    public int getQueueSize() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * Time the recent tasks spent waiting, eg blocked on I/O, per unit of
+     * time spent computing
+     */
+    public double getWaitComputeRatio() {
+        return waitComputeRatio;
+    }
+
+    /**
+     * Stops accepting tasks, letting the tasks already submitted complete
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        pool.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: target pool size=%d, largest=%d, queued=%d, wait/compute=%.1f",
+                name, getTargetPoolSize(), getLargestPoolSize(), getQueueSize(), waitComputeRatio);
+    }
+
+    private synchronized void adjust() {
+        long now = System.nanoTime();
+        double intervalNanos = Math.max(1, now - lastAdjustNanos);
+        lastAdjustNanos = now;
+        long arrivals = submittedCount.sumThenReset();
+        long completed = completedCount.sumThenReset();
+        long wall = wallNanos.sumThenReset();
+        long cpu = cpuNanos.sumThenReset();
+        int queued = pool.getQueue().size();
+        int active = pool.getActiveCount();
+        int size = pool.getMaximumPoolSize();
+
+        int target;
+        if (completed == 0) {
+            // Nothing to measure yet: probe upwards while every thread is stuck with a queue behind it
+            target = (queued > 0 && active >= size) ? size * 2 : Math.max(active, size - (size - active + 1) / 2);
+        } else {
+            double averageWall = (double) wall / completed;
+            if (CPU_TIME_ENABLED) {
+                double coreWait = cpu * Math.max(1.0, (double) size / cores);
+                waitComputeRatio = Math.max(0, wall - coreWait) / Math.max(1, cpu);
+            }
+            double needed = (arrivals + queued) / intervalNanos * averageWall;
+            double limit = CPU_TIME_ENABLED ? cores * (1 + waitComputeRatio) : maxThreads;
+            target = (int) Math.ceil(Math.min(needed, limit));
+            if (target < size) {
+                target = size - (size - target + 1) / 2;
+            }
+        }
+        resize(Math.max(minThreads, Math.min(maxThreads, target)));
+    }
+
+    private void resize(int size) {
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else if (size < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    private static long cpuTime() {
+        return CPU_TIME_ENABLED ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static boolean isCpuTimeEnabled() {
+        try {
+            return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.rbc.rbcone.java8.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A cache in front of an asynchronous loader.
+ *
+ * Concurrent requests for a key that is still loading share the same
+ * in-flight load, so the loader runs once per key at a time; each caller gets
+ * a CompletableFuture of its own, dependent on the load.
+ * Loaded values are kept in a least recently used cache of bounded size,
+ * and each expires a fixed time after it was loaded. Failed loads and null
+ * values are not cached.
+ */
+public class AsyncCache<K, V> {
+
+    private final Function<? super K, ? extends CompletableFuture<? extends V>> loader;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize maximum number of loaded values to keep
+     * @param ttlMillis   time after which a loaded value expires, or 0 to never expire
+     */
+    public AsyncCache(Function<? super K, ? extends CompletableFuture<? extends V>> loader,
+                      int maximumSize, long ttlMillis) {
+        if (maximumSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Maximum size and time to live must not be negative.");
+        }
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        // Qualified, as LinkedHashMap has a nested Entry class of its own on Java 8
+        this.entries = new LinkedHashMap<K, AsyncCache.Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, AsyncCache.Entry<V>> eldest) {
+                if (size() > AsyncCache.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public CompletableFuture<V> get(K key) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return dependent(existing);
+        }
+
+        // The value may have been stored after the first look up
+        cached = getIfPresent(key);
+        if (cached != null) {
+            inFlight.remove(key, future);
+            hits.increment();
+            future.complete(cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        misses.increment();
+        CompletableFuture<? extends V> loading;
+        try {
+            loading = loader.apply(key);
+        } catch (Throwable t) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(t);
+            return dependent(future);
+        }
+        loading.whenComplete((value, throwable) -> {
+            if (throwable == null && value != null) {
+                put(key, value);
+            }
+            inFlight.remove(key, future);
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(value);
+            }
+        });
+        return dependent(future);
+    }
+
+    /**
+     * The loaded value for the key, or null if it is absent or expired
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (ttlNanos > 0 && System.nanoTime() - entry.loadedAt >= ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Number of requests that joined a load already in flight
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Number of values removed because of the size limit or expiry
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * A future of its own for each caller, so that one caller completing or
+     * cancelling it does not affect the others sharing the load
+     */
+    private static <V> CompletableFuture<V> dependent(CompletableFuture<V> future) {
+        return future.thenApply(value -> value);
+    }
+
+    private void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncCache{" +
+                "size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", coalesced=" + getCoalescedCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.rbc.rbcone.java8.util;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Event sink that hands the events to a background thread, which formats
+ * and prints them. Logging an event costs a compare-and-set and a few
+ * writes to a ring buffer: it takes no lock, does no formatting and never
+ * waits for the stream.
+ *
+ * The ring buffer is a bounded multi-producer, single-consumer queue: each
+ * slot carries a sequence number telling whether it is free for the next
+ * event or holds one that is ready to print. When the writer falls behind
+ * and the buffer is full, new events are dropped and counted, rather than
+ * slowing down the threads that log them.
+ *
+ * The arguments are formatted later, on the writer thread, so mutable ones
+ * should be passed as a snapshot, eg String.valueOf(collection).
+ */
+public class AsyncEventSink implements EventSink, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    /**
+     * Set in the tail by close, so that no slot can be claimed afterwards
+     */
+    private static final long CLOSED = 1L << 62;
+
+    private final PrintStream out;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] formats;
+    private final Object[] args1;
+    private final Object[] args2;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder droppedCount = new LongAdder();
+    private final Thread writer;
+
+    /**
+     * Next sequence to be printed, only advanced by the writer
+     */
+    private volatile long head;
+    private volatile boolean closed;
+
+    public AsyncEventSink(PrintStream out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out      stream the events are printed to
+     * @param capacity number of events that can wait to be printed, a power of 2
+     */
+    public AsyncEventSink(PrintStream out, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of 2.");
+        }
+        this.out = out;
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.formats = new String[capacity];
+        this.args1 = new Object[capacity];
+        this.args2 = new Object[capacity];
+        this.writer = new Thread(this::write, "event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the event, or drops it if the buffer is full or the sink is closed
+     */
+    @Override
+    public void log(String format, Object arg1, Object arg2) {
+        long sequence = tail.get();
+        while (true) {
+            if ((sequence & CLOSED) != 0) {
+                droppedCount.increment();
+                return;
+            }
+            int index = (int) sequence & mask;
+            long slotSequence = sequences.get(index);
+            if (slotSequence == sequence) {
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    formats[index] = format;
+                    args1[index] = arg1;
+                    args2[index] = arg2;
+                    sequences.lazySet(index, sequence + 1);
+                    return;
+                }
+                sequence = tail.get();
+            } else if (slotSequence < sequence) {
+                droppedCount.increment();
+                return;
+            } else {
+                sequence = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Waits until the events logged before this call are printed
+     */
+    public void flush() {
+        long target = tail.get() & ~CLOSED;
+        while (head < target && writer.isAlive()) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        out.flush();
+    }
+
+    /**
+     * Prints the events already queued, including those being logged
+     * concurrently, then stops the writer. Events logged afterwards are
+     * dropped.
+     */
+    @Override
+    public void close() {
+        tail.getAndUpdate(sequence -> sequence | CLOSED);
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Number of events printed so far
+     */
+    public long getWrittenCount() {
+        return head;
+    }
+
+    private void write() {
+        while (true) {
+            boolean stopping = closed;
+            if (!drain()) {
+                // Once closed, the tail is final, but slots claimed before may not be published yet
+                if (stopping && head == (tail.get() & ~CLOSED)) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Prints the events that are ready, in order
+     *
+     * @return false if there were none
+     */
+    private boolean drain() {
+        long sequence = head;
+        int index = (int) sequence & mask;
+        if (sequences.get(index) != sequence + 1) {
+            return false;
+        }
+        do {
+            String format = formats[index];
+            Object arg1 = args1[index];
+            Object arg2 = args2[index];
+            formats[index] = null;
+            args1[index] = null;
+            args2[index] = null;
+            sequences.lazySet(index, sequence + mask + 1);
+            print(format, arg1, arg2);
+            head = ++sequence;
+            index = (int) sequence & mask;
+        } while (sequences.get(index) == sequence + 1);
+        return true;
+    }
+
+    private void print(String format, Object arg1, Object arg2) {
+        try {
+            out.println(String.format(format, arg1, arg2));
+        } catch (RuntimeException e) {
+            out.println(String.format("Could not print event %s: %s", format, e));
+        }
+    }
+
+}
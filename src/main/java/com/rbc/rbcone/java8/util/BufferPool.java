@@ -0,0 +1,201 @@
+package com.rbc.rbcone.java8.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe pool of ByteBuffers, to avoid allocating a new buffer for
+ * every item that goes through a pipeline.
+ *
+ * Buffers are pooled by size class, each a power of 2 between MIN_SIZE and
+ * the maximum pooled size; larger buffers are allocated, and dropped on
+ * release, as usual. Released buffers go to a small cache owned by the
+ * releasing thread, so a thread that allocates and releases buffers at a
+ * steady rate does not contend with the others. Once that cache is full,
+ * they go to a bounded cache shared by all threads.
+ *
+ * With leak detection on, which is meant for tests, the pool keeps track of
+ * where every outstanding buffer was allocated, and checkLeaks reports the
+ * ones that were never released. It is on by default when the system
+ * property "bufferPool.leakDetection" is true.
+ */
+public class BufferPool {
+
+    public static final int MIN_SIZE = 64;
+
+    public static final int DEFAULT_MAX_POOLED_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 16;
+    public static final int DEFAULT_SHARED_CACHE_SIZE = 256;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+
+    private final int maxPooledSize;
+    private final int threadCacheSize;
+    private final boolean direct;
+    private final boolean leakDetection;
+
+    private final ThreadLocal<ArrayDeque<ByteBuffer>[]> threadCaches;
+    private final ArrayBlockingQueue<ByteBuffer>[] sharedCaches;
+    private final Set<PooledBuffer> outstanding = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder allocatedCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder outstandingCount = new LongAdder();
+
+    public BufferPool() {
+        this(DEFAULT_MAX_POOLED_SIZE, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_SHARED_CACHE_SIZE, false,
+                Boolean.getBoolean("bufferPool.leakDetection"));
+    }
+
+    /**
+     * @param maxPooledSize   size of the largest buffers to pool, rounded up to a power of 2
+     * @param threadCacheSize number of buffers of each size class to cache per thread
+     * @param sharedCacheSize number of buffers of each size class to cache for all threads
+     * @param direct          whether to allocate the buffers outside of the Java heap
+     * @param leakDetection   whether to record where each buffer was allocated
+     */
+    public BufferPool(int maxPooledSize, int threadCacheSize, int sharedCacheSize,
+                      boolean direct, boolean leakDetection) {
+        if (maxPooledSize < MIN_SIZE || maxPooledSize > 1 << 30) {
+            throw new IllegalArgumentException("Max pooled size must be between " + MIN_SIZE + " and 2^30.");
+        }
+        if (threadCacheSize < 0 || sharedCacheSize < 1) {
+            throw new IllegalArgumentException("Cache sizes must be positive.");
+        }
+        this.maxPooledSize = 1 << (32 - Integer.numberOfLeadingZeros(maxPooledSize - 1));
+        this.threadCacheSize = threadCacheSize;
+        this.direct = direct;
+        this.leakDetection = leakDetection;
+
+        int sizeClasses = sizeClass(this.maxPooledSize) + 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayBlockingQueue<ByteBuffer>[] shared = new ArrayBlockingQueue[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            shared[i] = new ArrayBlockingQueue<>(sharedCacheSize);
+        }
+        this.sharedCaches = shared;
+        this.threadCaches = ThreadLocal.withInitial(() -> {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            ArrayDeque<ByteBuffer>[] caches = new ArrayDeque[sizeClasses];
+            for (int i = 0; i < sizeClasses; i++) {
+                caches[i] = new ArrayDeque<>(threadCacheSize);
+            }
+            return caches;
+        });
+    }
+
+    /**
+     * Borrows a buffer with position 0 and limit size, which must be
+     * returned by calling release once it is no longer used. Its content is
+     * undefined.
+     */
+    public PooledBuffer allocate(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative.");
+        }
+        ByteBuffer buffer;
+        if (size <= maxPooledSize) {
+            int sizeClass = sizeClass(size);
+            buffer = threadCaches.get()[sizeClass].pollFirst();
+            if (buffer == null) {
+                buffer = sharedCaches[sizeClass].poll();
+            }
+            if (buffer == null) {
+                buffer = newBuffer(MIN_SIZE << sizeClass);
+            } else {
+                reusedCount.increment();
+            }
+        } else {
+            buffer = newBuffer(size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+
+        PooledBuffer pooled = new PooledBuffer(this, buffer, leakDetection ? new Throwable("Allocated here") : null);
+        outstandingCount.increment();
+        if (leakDetection) {
+            outstanding.add(pooled);
+        }
+        return pooled;
+    }
+
+    void release(PooledBuffer pooled, ByteBuffer buffer) {
+        outstandingCount.decrement();
+        if (leakDetection) {
+            outstanding.remove(pooled);
+        }
+        int capacity = buffer.capacity();
+        if (capacity > maxPooledSize) {
+            return;
+        }
+        int sizeClass = sizeClass(capacity);
+        ArrayDeque<ByteBuffer> threadCache = threadCaches.get()[sizeClass];
+        if (threadCache.size() < threadCacheSize) {
+            threadCache.addFirst(buffer);
+        } else {
+            sharedCaches[sizeClass].offer(buffer);
+        }
+    }
+
+    /**
+     * Throws an IllegalStateException if any buffer allocated from this pool
+     * has not been released, with the place where each was allocated as
+     * suppressed exceptions when leak detection is on
+     */
+    public void checkLeaks() {
+        long count = getOutstandingCount();
+        if (count == 0) {
+            return;
+        }
+        IllegalStateException e = new IllegalStateException(count + " buffer(s) not released.");
+        for (PooledBuffer pooled : outstanding) {
+            e.addSuppressed(pooled.getAllocationSite());
+        }
+        throw e;
+    }
+
+    /**
+     * Number of buffers created by the pool, as opposed to reused
+     */
+    public long getAllocatedCount() {
+        return allocatedCount.sum();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.sum();
+    }
+
+    /**
+     * Number of buffers allocated and not released yet
+     */
+    public long getOutstandingCount() {
+        return outstandingCount.sum();
+    }
+
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    private ByteBuffer newBuffer(int capacity) {
+        allocatedCount.increment();
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static int sizeClass(int size) {
+        return (size <= MIN_SIZE) ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool{" +
+                "allocatedCount=" + getAllocatedCount() +
+                ", reusedCount=" + getReusedCount() +
+                ", outstandingCount=" + getOutstandingCount() +
+                '}';
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.rbc.rbcone.java8.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a text file of digits (eg: "3.14159...").
+ * Characters are read straight from the mapped file, so ranges of very large
+ * files can be accessed without loading them onto the heap.
+ * Trailing whitespace in the file is not part of the sequence.
+ */
+public class DigitFile implements CharSequence {
+
+    private final ByteBuffer buffer;
+
+    private DigitFile(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public static DigitFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int length = buffer.limit();
+            while (length > 0 && Character.isWhitespace(buffer.get(length - 1))) {
+                length--;
+            }
+            buffer.limit(length);
+            return new DigitFile(buffer.slice());
+        }
+    }
+
+    @Override
+    public int length() {
+        return buffer.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) byteAt(index);
+    }
+
+    public byte byteAt(int index) {
+        return buffer.get(index);
+    }
+
+    /**
+     * Returns a view of the given range, backed by the same mapping
+     */
+    @Override
+    public DigitFile subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException(String.format("Invalid range [%d, %d)", start, end));
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.position(start).limit(end);
+        return new DigitFile(view.slice());
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.rbc.rbcone.java8.util;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A channel that compares everything written to it, chunk by chunk, against
+ * a reference sequence of digits and records the first position where they
+ * differ. Nothing written is retained.
+ */
+public class DigitVerifier implements WritableByteChannel {
+
+    private final DigitFile reference;
+    private long position;
+    private long mismatch = -1;
+    private boolean open = true;
+
+    public DigitVerifier(DigitFile reference) {
+        this.reference = reference;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        int count = src.remaining();
+        if (mismatch >= 0) {
+            src.position(src.limit());
+        }
+        while (src.hasRemaining()) {
+            byte b = src.get();
+            if (position >= reference.length() || reference.byteAt((int) position) != b) {
+                mismatch = position;
+                src.position(src.limit());
+                break;
+            }
+            position++;
+        }
+        return count;
+    }
+
+    /**
+     * Number of matching characters written so far
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Position of the first character that did not match the reference, or -1
+     */
+    public long getMismatch() {
+        return mismatch;
+    }
+
+    public boolean isMatch() {
+        return mismatch < 0;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.rbc.rbcone.java8.util;
+
+import java.io.PrintStream;
+
+/**
+ * Destination of the log events of a service. An event is a format string
+ * and up to two arguments, so a sink can defer the formatting, or skip it.
+ * Arguments that may change after the call should be passed as a snapshot.
+ */
+@FunctionalInterface
+public interface EventSink {
+
+    /**
+     * Drops every event
+     */
+    EventSink NO_OP = (format, arg1, arg2) -> {
+    };
+
+    /**
+     * Formats and prints each event to System.out, on the calling thread
+     */
+    EventSink STDOUT = (format, arg1, arg2) -> System.out.println(String.format(format, arg1, arg2));
+
+    void log(String format, Object arg1, Object arg2);
+
+    default void log(String format, Object arg) {
+        log(format, arg, null);
+    }
+
+    /**
+     * Formats and prints each event to the stream, on the calling thread
+     */
+    static EventSink printing(PrintStream out) {
+        return (format, arg1, arg2) -> out.println(String.format(format, arg1, arg2));
+    }
+
+}
@@ -4,6 +4,12 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.stream.Collectors;
 
 public class FileUtils {
@@ -16,4 +22,32 @@ public class FileUtils {
         }
     }
 
+    public static DigitFile mapDigitFile(String filename) throws IOException {
+        return DigitFile.map(getResourcePath(filename));
+    }
+
+    /**
+     * Path of the resource. A resource packaged in a jar has no path of its
+     * own, so it is copied to a temporary file, deleted when the JVM exits.
+     */
+    public static Path getResourcePath(String filename) throws IOException {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(filename);
+        if (url == null) {
+            throw new IOException(String.format("Resource not found: %s", filename));
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        Path copy = Files.createTempFile("resource-", "-" + Paths.get(filename).getFileName());
+        copy.toFile().deleteOnExit();
+        try (InputStream in = url.openStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return copy;
+    }
+
 }
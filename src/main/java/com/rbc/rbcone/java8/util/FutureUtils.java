@@ -0,0 +1,179 @@
+package com.rbc.rbcone.java8.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BinaryOperator;
+
+public class FutureUtils {
+
+    /**
+     * Reduces the results of the futures, in list order, as a balanced binary
+     * tree of combine steps. The longest chain of dependent combines is
+     * log2(n) deep instead of the n of a linear fold.
+     *
+     * @param operator an associative operator, run on the executor
+     */
+    public static <T> CompletableFuture<T> reduceTree(List<CompletableFuture<T>> futures,
+                                                      BinaryOperator<T> operator, Executor executor) {
+        if (futures.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to reduce.");
+        }
+        return reduceTree(futures, 0, futures.size(), operator, executor);
+    }
+
+    private static <T> CompletableFuture<T> reduceTree(List<CompletableFuture<T>> futures, int from, int to,
+                                                       BinaryOperator<T> operator, Executor executor) {
+        if (to - from == 1) {
+            return futures.get(from);
+        }
+        int mid = (from + to) >>> 1;
+        return reduceTree(futures, from, mid, operator, executor)
+                .thenCombineAsync(reduceTree(futures, mid, to, operator, executor), operator, executor);
+    }
+
+    /**
+     * Reduces the results of the futures, in list order, combining any two
+     * adjacent partial results as soon as both are available. Unlike
+     * reduceTree, a slow future only holds up the combines that involve it.
+     * The operator needs to be associative, but not commutative.
+     *
+     * @param operator an associative operator, run on the executor
+     */
+    public static <T> CompletableFuture<T> reduceInCompletionOrder(List<CompletableFuture<T>> futures,
+                                                                   BinaryOperator<T> operator, Executor executor) {
+        if (futures.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to reduce.");
+        }
+        CompletionOrderReduction<T> reduction = new CompletionOrderReduction<>(futures.size(), operator, executor);
+        for (int i = 0; i < futures.size(); i++) {
+            int index = i;
+            futures.get(i).whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    reduction.result.completeExceptionally(throwable);
+                } else {
+                    reduction.ready(new Segment<>(index, index + 1, value));
+                }
+            });
+        }
+        return reduction.result;
+    }
+
+    /**
+     * Returns a future that completes on the executor with the outcome of
+     * the given one, so callbacks chained to it without an executor run
+     * there as well. If the outcome takes longer than the timeout, the
+     * returned future fails with a TimeoutException instead, and the given
+     * future is cancelled. Cancelling the returned future cancels the given
+     * one too.
+     *
+     * Cancelling the given future only stops the work behind it if that
+     * future passes the cancellation on: a future made with thenApply does
+     * not cancel the one it depends on, while one made with
+     * ThreadUtils.delayAsync(millis, supplier, executor) cancels its delay.
+     *
+     * @param timeoutMillis the timeout, or 0 to wait forever
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMillis,
+                                                       Executor executor) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative.");
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenCompleteAsync((value, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(value);
+            }
+        }, executor);
+        if (timeoutMillis > 0) {
+            CompletableFuture<Void> timeout = ThreadUtils.delayAsync(timeoutMillis);
+            timeout.thenRunAsync(() -> {
+                if (result.completeExceptionally(new TimeoutException(String.format("Timed out after %dms", timeoutMillis)))) {
+                    future.cancel(false);
+                }
+            }, executor);
+            result.whenComplete((value, throwable) -> timeout.cancel(false));
+        }
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                future.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Partial result covering the inputs from (inclusive) to (exclusive)
+     */
+    private static class Segment<T> {
+        private final int from;
+        private final int to;
+        private final T value;
+
+        private Segment(int from, int to, T value) {
+            this.from = from;
+            this.to = to;
+            this.value = value;
+        }
+    }
+
+    private static class CompletionOrderReduction<T> {
+
+        private final int size;
+        private final BinaryOperator<T> operator;
+        private final Executor executor;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        /**
+         * Segments that are available and not being combined, keyed by start
+         */
+        private final TreeMap<Integer, Segment<T>> available = new TreeMap<>();
+
+        private CompletionOrderReduction(int size, BinaryOperator<T> operator, Executor executor) {
+            this.size = size;
+            this.operator = operator;
+            this.executor = executor;
+        }
+
+        private void ready(Segment<T> segment) {
+            if (segment.from == 0 && segment.to == size) {
+                result.complete(segment.value);
+                return;
+            }
+            Segment<T> left;
+            Segment<T> right;
+            synchronized (available) {
+                Map.Entry<Integer, Segment<T>> before = available.lowerEntry(segment.from);
+                Segment<T> after = available.get(segment.to);
+                if (before != null && before.getValue().to == segment.from) {
+                    left = available.remove(before.getKey());
+                    right = segment;
+                } else if (after != null) {
+                    left = segment;
+                    right = available.remove(after.from);
+                } else {
+                    available.put(segment.from, segment);
+                    return;
+                }
+            }
+            try {
+                CompletableFuture.supplyAsync(() -> operator.apply(left.value, right.value), executor)
+                        .whenComplete((value, throwable) -> {
+                            if (throwable != null) {
+                                result.completeExceptionally(throwable);
+                            } else {
+                                ready(new Segment<>(left.from, right.to, value));
+                            }
+                        });
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.rbc.rbcone.java8.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, cheap enough to record
+ * every event on a hot path.
+ *
+ * Like an HdrHistogram, values are counted in buckets whose width grows
+ * with the value: each power of 2 is split into 32 buckets, so a recorded
+ * value is known to within about 3%, between 0 and MAX_VALUE, 2^41 - 1ns
+ * or about 36.6 minutes. Larger values are counted in the last bucket and
+ * as MAX_VALUE in the mean, so one outlier cannot overflow the sum; the
+ * max is kept exact.
+ *
+ * To avoid contention, each thread counts in one of several stripes,
+ * picked from its id; the stripes are only merged when taking a snapshot.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private volatile long startNanos = System.nanoTime();
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+        stripeMask = stripeCount - 1;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        long clamped = Math.min(value, MAX_VALUE);
+        stripes[(int) Thread.currentThread().getId() & stripeMask].getAndIncrement(bucketIndex(clamped));
+        sum.add(clamped);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since the given System.nanoTime
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Clears the counts and restarts the throughput interval. Values
+     * recorded concurrently may or may not be cleared.
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        sum.reset();
+        max.reset();
+        startNanos = System.nanoTime();
+    }
+
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = stripe.get(i);
+                counts[i] += c;
+                count += c;
+            }
+        }
+        return new Snapshot(counts, count, sum.sum(), max.get(), System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public String toString() {
+        return getSnapshot().toString();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Smallest value counted in the bucket
+     */
+    static long bucketLowerBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Value in the middle of the bucket
+     */
+    static long bucketMidpoint(int index) {
+        long lowerBound = bucketLowerBound(index);
+        return (index < 2 * SUB_BUCKETS) ? lowerBound : lowerBound + (1L << (index / SUB_BUCKETS - 2));
+    }
+
+    /**
+     * Merged counts of a histogram at one point in time
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long intervalNanos;
+
+        private Snapshot(long[] counts, long count, long sum, long max, long intervalNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.intervalNanos = intervalNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return (count == 0) ? 0 : (double) sum / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Latency below which the given percentage of the values fall, to
+         * within the precision of the buckets, or 0 if there are no values
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketMidpoint(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Number of values recorded per second, since the histogram was created or reset
+         */
+        public double getThroughput() {
+            return (intervalNanos <= 0) ? 0 : count * 1e9 / intervalNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus, throughput=%.1f/s",
+                    count, getMean() / 1000,
+                    getValueAtPercentile(50) / 1000.0, getValueAtPercentile(99) / 1000.0,
+                    getValueAtPercentile(99.9) / 1000.0, max / 1000.0,
+                    getThroughput());
+        }
+    }
+
+}
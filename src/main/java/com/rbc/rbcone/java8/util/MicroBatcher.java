@@ -0,0 +1,155 @@
+package com.rbc.rbcone.java8.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects individual asynchronous requests and dispatches them together to
+ * a batch function.
+ *
+ * A batch is dispatched as soon as it holds maxBatchSize requests, or once
+ * maxDelayMillis have passed since its first request, whichever comes first.
+ * Each request's future is completed with the matching element of the list
+ * returned by the batch function.
+ */
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+    private final Function<List<K>, List<V>> batchFunction;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final Executor executor;
+    private final ScheduledThreadPoolExecutor timer;
+
+    private Batch<K, V> pending;
+    private boolean closed;
+
+    /**
+     * @param batchFunction  processes a batch of requests, returning one result per request in order
+     * @param maxBatchSize   number of requests that triggers a dispatch
+     * @param maxDelayMillis longest time a request waits before its batch is dispatched
+     * @param executor       runs the batch function
+     */
+    public MicroBatcher(Function<List<K>, List<V>> batchFunction, int maxBatchSize,
+                        long maxDelayMillis, Executor executor) {
+        if (maxBatchSize < 1 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and delay must not be negative.");
+        }
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.executor = executor;
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "micro-batcher-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public CompletableFuture<V> submit(K request) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        Batch<K, V> full = null;
+        synchronized (this) {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("Batcher is closed."));
+                return future;
+            }
+            if (pending == null) {
+                Batch<K, V> batch = new Batch<>();
+                pending = batch;
+                batch.delayedFlush = timer.schedule(() -> flush(batch), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            pending.requests.add(request);
+            pending.futures.add(future);
+            if (pending.requests.size() >= maxBatchSize) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Dispatches the pending requests, if any, without waiting for the batch to fill
+     */
+    public void flush() {
+        Batch<K, V> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = null;
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * Dispatches the pending requests and stops accepting new ones
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        timer.shutdownNow();
+    }
+
+    private void flush(Batch<K, V> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = null;
+        }
+        dispatch(batch);
+    }
+
+    /**
+     * Number of delayed flushes waiting on the timer
+     */
+    int getScheduledFlushCount() {
+        return timer.getQueue().size();
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        // No longer needed when the batch is dispatched because it is full, or flushed explicitly
+        batch.delayedFlush.cancel(false);
+        try {
+            executor.execute(() -> run(batch));
+        } catch (Throwable t) {
+            batch.futures.forEach(future -> future.completeExceptionally(t));
+        }
+    }
+
+    private void run(Batch<K, V> batch) {
+        try {
+            List<V> results = batchFunction.apply(batch.requests);
+            if (results == null || results.size() != batch.requests.size()) {
+                throw new IllegalStateException(String.format("Expected %d results for batch but got %s",
+                        batch.requests.size(), results == null ? null : results.size()));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                batch.futures.get(i).complete(results.get(i));
+            }
+        } catch (Throwable t) {
+            batch.futures.forEach(future -> future.completeExceptionally(t));
+        }
+    }
+
+    private static class Batch<K, V> {
+        private final List<K> requests = new ArrayList<>();
+        private final List<CompletableFuture<V>> futures = new ArrayList<>();
+        private ScheduledFuture<?> delayedFlush;
+    }
+
+}
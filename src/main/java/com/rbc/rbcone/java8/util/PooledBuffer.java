@@ -0,0 +1,59 @@
+package com.rbc.rbcone.java8.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A ByteBuffer borrowed from a BufferPool
+ */
+public final class PooledBuffer {
+
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final Throwable allocationSite;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, Throwable allocationSite) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.allocationSite = allocationSite;
+    }
+
+    /**
+     * The buffer, which must not be used after release
+     */
+    public ByteBuffer buffer() {
+        if (released.get()) {
+            throw new IllegalStateException("Buffer has been released.");
+        }
+        return buffer;
+    }
+
+    public BufferPool getPool() {
+        return pool;
+    }
+
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    /**
+     * Returns the buffer to its pool
+     *
+     * @throws IllegalStateException if it has already been released
+     */
+    public void release() {
+        if (!released.compareAndSet(false, true)) {
+            throw new IllegalStateException("Buffer has already been released.", allocationSite);
+        }
+        pool.release(this, buffer);
+    }
+
+    /**
+     * Where the buffer was allocated, when the pool does leak detection
+     */
+    Throwable getAllocationSite() {
+        return allocationSite;
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.rbc.rbcone.java8.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking tasks, such as image fetches, and CPU-bound tasks, such as
+ * scaling, on separate pools, and both away from the ForkJoin common pool
+ * that the pi calculations use.
+ *
+ * CPU-bound tasks run on a work-stealing ForkJoinPool sized to the cores.
+ * Blocking tasks run on a blocking executor (see
+ * ThreadUtils.createBlockingExecutor), so any number of them can wait at
+ * once without holding up the CPU-bound ones.
+ *
+ * A blocking call that cannot be moved off a ForkJoinPool, say inside a
+ * stage that mostly computes, should go through block, which lets the
+ * pool start a spare thread while the call waits.
+ */
+public class TaskScheduler implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BLOCKING_THREADS = 256;
+
+    private final ForkJoinPool cpuPool;
+    private final Executor blockingExecutor;
+
+    public TaskScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_BLOCKING_THREADS);
+    }
+
+    /**
+     * @param cpuParallelism     number of CPU-bound tasks to run at once
+     * @param maxBlockingThreads number of blocking tasks to run at once,
+     *                           when the JDK does not support virtual threads
+     */
+    public TaskScheduler(int cpuParallelism, int maxBlockingThreads) {
+        if (cpuParallelism < 1 || maxBlockingThreads < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.cpuPool = new ForkJoinPool(cpuParallelism, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName(String.format("cpu-worker-%d", threadCount.getAndIncrement()));
+            t.setDaemon(true);
+            return t;
+        }, null, true);
+        this.blockingExecutor = ThreadUtils.createBlockingExecutor(maxBlockingThreads);
+    }
+
+    public Executor getCpuExecutor() {
+        return cpuPool;
+    }
+
+    public Executor getBlockingExecutor() {
+        return blockingExecutor;
+    }
+
+    public <T> CompletableFuture<T> supplyCpu(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, cpuPool);
+    }
+
+    public <T> CompletableFuture<T> supplyBlocking(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, blockingExecutor);
+    }
+
+    /**
+     * Makes a blocking call. On a ForkJoinPool thread, the call is made
+     * through ForkJoinPool.managedBlock, so the pool can keep its
+     * parallelism by starting a spare thread while this one waits.
+     */
+    public static <T> T block(Supplier<T> call) {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            return call.get();
+        }
+        CallBlocker<T> blocker = new CallBlocker<>(call);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted before the call could be made.", e);
+        }
+        return blocker.result;
+    }
+
+    /**
+     * Stops both pools, letting the tasks already submitted complete
+     */
+    @Override
+    public void close() {
+        cpuPool.shutdown();
+        if (blockingExecutor instanceof ExecutorService) {
+            ((ExecutorService) blockingExecutor).shutdown();
+        }
+    }
+
+    private static class CallBlocker<T> implements ForkJoinPool.ManagedBlocker {
+
+        private final Supplier<T> call;
+        private boolean done;
+        private T result;
+
+        private CallBlocker(Supplier<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean block() {
+            if (!done) {
+                result = call.get();
+                done = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+}
@@ -1,11 +1,20 @@
 package com.rbc.rbcone.java8.util;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class ThreadUtils {
 
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
     public static boolean delay(long millis) {
         try {
             Thread.sleep(millis);
@@ -16,6 +25,54 @@ public class ThreadUtils {
         }
     }
 
+    /**
+     * Like delay, for waits that are interrupted on purpose, eg to cancel a
+     * fetch that is no longer needed: the interrupt ends the wait without
+     * being reported
+     */
+    public static boolean delayQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a future that completes after the given time, without blocking
+     * a thread in the meantime: a single timer thread serves all the pending
+     * delays. Cancelling the future cancels the delay.
+     *
+     * The future completes on the timer thread, so anything more than
+     * trivial work chained to it should use an *Async method with an executor.
+     */
+    public static CompletableFuture<Void> delayAsync(long millis) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = TIMER.schedule(() -> future.complete(null), millis, TimeUnit.MILLISECONDS);
+        future.whenComplete((v, throwable) -> timeout.cancel(false));
+        return future;
+    }
+
+    /**
+     * Returns a future that completes with the value of the supplier, run on
+     * the executor after the given time. Unlike a future chained to
+     * delayAsync(millis) with thenApplyAsync, cancelling it cancels the delay.
+     */
+    public static <T> CompletableFuture<T> delayAsync(long millis, Supplier<T> supplier, Executor executor) {
+        CompletableFuture<Void> delay = delayAsync(millis);
+        CompletableFuture<T> future = delay.thenApplyAsync(v -> supplier.get(), executor);
+        future.whenComplete((value, throwable) -> delay.cancel(false));
+        return future;
+    }
+
+    /**
+     * Number of delays waiting for the timer
+     */
+    static int getPendingDelayCount() {
+        return TIMER.getQueue().size();
+    }
+
     public static Executor createDaemonThreadPool(int numThreads) {
         return Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
             @Override
@@ -27,6 +84,44 @@ public class ThreadUtils {
         });
     }
 
+    /**
+     * Creates an executor for blocking tasks, such as image fetches, that
+     * starts a virtual thread per task when the JDK supports them (21+).
+     * Otherwise, falls back to a daemon thread pool of the given size.
+     */
+    public static Executor createBlockingExecutor(int numThreads) {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (Executor) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                e.printStackTrace();
+            }
+        }
+        return createDaemonThreadPool(numThreads);
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "delay-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     public static long getTimeSince(long start) {
         return (System.nanoTime() - start) / 1_000_000;
     }
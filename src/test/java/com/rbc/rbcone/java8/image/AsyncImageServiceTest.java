@@ -0,0 +1,116 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class AsyncImageServiceTest {
+
+    private final List<String> imageNames = Arrays.asList(
+            "Cat",
+            "Dog",
+            "Elephant",
+            "Fox",
+            "Giraffe",
+            "Horse",
+            "Iguana",
+            "Jackrabbit",
+            "Kangaroo"
+    );
+
+    private final ThreadLocal<Boolean> onExecutor = ThreadLocal.withInitial(() -> false);
+
+    private final Executor pool = createDaemonThreadPool(2);
+
+    /**
+     * Marks the threads while they run tasks for the service
+     */
+    private final Executor executor = command -> pool.execute(() -> {
+        onExecutor.set(true);
+        try {
+            command.run();
+        } finally {
+            onExecutor.set(false);
+        }
+    });
+
+    @Test
+    public void testRenderImageAsync_AllImagesOnTwoThreads() {
+        long start = System.nanoTime();
+        AsyncImageService service = new AsyncImageService(executor);
+
+        CompletableFuture[] futures = imageNames.stream()
+                .map(service::renderImageAsync)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        long elapsed = getTimeSince(start);
+        System.out.println(String.format("\nFinished rendering all images. Total time: %dms", elapsed));
+        assertTrue(elapsed < 5_000);
+    }
+
+    @Test
+    public void testGetScaledImageAsync_CallbacksRunOnExecutor() {
+        AsyncImageService service = new AsyncImageService(executor);
+
+        CompletableFuture<Boolean> scaledOnExecutor = service.getTransformedImageAsync("Cat")
+                .thenApply(transformedImage -> onExecutor.get());
+        CompletableFuture<ScaledImage> scaledImage = service.getScaledImageAsync("Dog");
+
+        assertTrue(scaledOnExecutor.join());
+        assertEquals("GOD", scaledImage.join().getData());
+    }
+
+    @Test
+    public void testImageServiceAsync_WorkRunsOnExecutor() {
+        CompletableFuture<Boolean> fetchedOnExecutor = ImageService.getRawImageAsync("Cat", 10, executor)
+                .thenApply(rawImage -> onExecutor.get());
+        CompletableFuture<Boolean> transformedOnExecutor = ImageService.getTransformedImageAsync(
+                new RawImage("Dog", "dog"), executor)
+                .thenApply(transformedImage -> onExecutor.get());
+
+        assertTrue(fetchedOnExecutor.join());
+        assertTrue(transformedOnExecutor.join());
+    }
+
+    @Test
+    public void testCombineAsync() {
+        AsyncImageService service = new AsyncImageService(executor);
+
+        TransformedImage combined = imageNames.subList(0, 3).stream()
+                .map(service::getTransformedImageAsync)
+                .reduce(service::combineAsync)
+                .get()
+                .join();
+
+        System.out.println(String.format("Combined image: %s", combined));
+        assertEquals("CE", combined.getName());
+        assertEquals("tacgod tnahpele ", combined.getData());
+    }
+
+    @Test
+    public void testGetRawImageAsync_TimesOut() {
+        AsyncImageService service = new AsyncImageService(executor, 200);
+        long start = System.nanoTime();
+
+        try {
+            service.getRawImageAsync("Cat").join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue(getTimeSince(start) < 1000);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.image.ImageService.getRawImages;
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.rbc.rbcone.java8.util.MicroBatcher;
+
+public class BatchFetchTest {
+
+    private final List<String> imageNames = Arrays.asList(
+            "Cat",
+            "Dog",
+            "Elephant",
+            "Fox",
+            "Giraffe",
+            "Horse",
+            "Iguana",
+            "Jackrabbit",
+            "Kangaroo"
+    );
+
+    private final Executor executor =
+            createDaemonThreadPool(Math.min(imageNames.size(), 100));
+
+    @Test
+    public void testBatch_LoadAllRawImages() {
+        long start = System.nanoTime();
+
+        List<RawImage> rawImages = getRawImages(imageNames);
+
+        rawImages.stream()
+                .map(rawImage -> String.format("Loaded raw image: %s", rawImage))
+                .forEach(System.out::println);
+        assertEquals(imageNames, rawImages.stream().map(RawImage::getName).collect(Collectors.toList()));
+
+        System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
+    }
+
+    @Test
+    public void testMicroBatcher_LoadAllTransformedImages() {
+        long start = System.nanoTime();
+
+        try (MicroBatcher<String, RawImage> batcher =
+                     new MicroBatcher<>(ImageService::getRawImages, 4, 50, executor)) {
+            CompletableFuture[] futures = imageNames.stream()
+                    .map(batcher::submit)
+                    .map(rawImageFuture -> rawImageFuture.thenApplyAsync(ImageService::getTransformedImage, executor))
+                    .map(transformedImageFuture -> transformedImageFuture.thenAccept(
+                            transformedImage -> System.out.println(String.format("Loaded transformed image: %s", transformedImage))
+                    ))
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(futures).join();
+        }
+
+        System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
+    }
+
+}
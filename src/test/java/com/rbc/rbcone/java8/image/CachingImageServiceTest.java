@@ -0,0 +1,56 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+public class CachingImageServiceTest {
+
+    private final List<String> imageNames = Arrays.asList(
+            "Cat",
+            "Dog",
+            "Cat",
+            "Elephant",
+            "Dog",
+            "Cat",
+            "Fox",
+            "Elephant",
+            "Cat"
+    );
+
+    private final Executor executor =
+            createDaemonThreadPool(Math.min(imageNames.size(), 100));
+
+    @Test
+    public void testCachingImageService_DuplicateNames() {
+        long start = System.nanoTime();
+        CachingImageService service = new CachingImageService(executor, 100, 60_000);
+
+        CompletableFuture[] futures = imageNames.stream()
+                .map(service::getTransformedImage)
+                .map(transformedImageFuture -> transformedImageFuture.thenAccept(
+                        transformedImage -> System.out.println(String.format("Loaded transformed image: %s", transformedImage))
+                ))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+        service.getTransformedImage("Cat").join();
+
+        System.out.println(String.format("Raw images: %s", service.getRawImageCache()));
+        System.out.println(String.format("Transformed images: %s", service.getTransformedImageCache()));
+        System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
+
+        assertEquals(4, service.getRawImageCache().getMissCount());
+        assertEquals(4, service.getTransformedImageCache().getMissCount());
+        assertEquals(5, service.getTransformedImageCache().getCoalescedCount());
+        assertEquals(1, service.getTransformedImageCache().getHitCount());
+    }
+
+}
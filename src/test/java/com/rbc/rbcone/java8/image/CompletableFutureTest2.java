@@ -2,6 +2,8 @@ package com.rbc.rbcone.java8.image;
 
 import static com.rbc.rbcone.java8.image.ImageService.getRawImage;
 import static com.rbc.rbcone.java8.image.ImageService.getTransformedImage;
+import static com.rbc.rbcone.java8.util.FutureUtils.reduceInCompletionOrder;
+import static com.rbc.rbcone.java8.util.FutureUtils.reduceTree;
 import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
 import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
 import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
@@ -15,6 +17,9 @@ import java.util.stream.Stream;
 
 import org.junit.Test;
 
+import com.rbc.rbcone.java8.util.AdaptiveExecutor;
+import com.rbc.rbcone.java8.util.TaskScheduler;
+
 @SuppressWarnings("Duplicates")
 public class CompletableFutureTest2 {
 
@@ -82,6 +87,23 @@ public class CompletableFutureTest2 {
         System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
     }
 
+    @Test
+    public void testCompletableFuture_LoadAllRawImagesOnBlockingExecutor() {
+        long start = System.nanoTime();
+
+        List<CompletableFuture<RawImage>> rawImageFutures =
+                imageNames.stream()
+                        .map(ImageService::getRawImageAsync)
+                        .collect(Collectors.toList());
+
+        rawImageFutures.stream()
+                .map(CompletableFuture::join)
+                .map(rawImage -> String.format("Loaded raw image: %s", rawImage))
+                .forEach(System.out::println);
+
+        System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
+    }
+
     @Test
     public void testCompletableFuture_ScaleAllTransformedImages() {
         long start = System.nanoTime();
@@ -108,6 +130,60 @@ public class CompletableFutureTest2 {
         System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
     }
 
+    @Test
+    public void testCompletableFuture_ScaleAllTransformedImagesWithScheduler() {
+        long start = System.nanoTime();
+
+        try (TaskScheduler scheduler = new TaskScheduler()) {
+            List<CompletableFuture<ScaledImage>> scaledImageFutures =
+                    imageNames.stream()
+                            .map(imageName -> scheduler.supplyBlocking(() -> getRawImage(imageName)))
+                            .map(imageDataFuture -> imageDataFuture.thenApplyAsync(
+                                    ImageService::getTransformedImage, scheduler.getBlockingExecutor()
+                            ))
+                            .map(transformedDataFuture -> transformedDataFuture.thenApplyAsync(
+                                    ImageService::getScaledImage, scheduler.getCpuExecutor()
+                            ))
+                            .collect(Collectors.toList());
+
+            scaledImageFutures.stream()
+                    .map(CompletableFuture::join)
+                    .map(scaledImage -> String.format("Loaded scaled image: %s", scaledImage))
+                    .forEach(System.out::println);
+        }
+
+        System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
+    }
+
+    @Test
+    public void testCompletableFuture_ScaleAllTransformedImagesWithAdaptiveExecutors() {
+        long start = System.nanoTime();
+
+        try (AdaptiveExecutor fetchExecutor = new AdaptiveExecutor("fetch", 1, 100);
+             AdaptiveExecutor transformExecutor = new AdaptiveExecutor("transform", 1, 100)) {
+            List<CompletableFuture<ScaledImage>> scaledImageFutures =
+                    imageNames.stream()
+                            .map(imageName -> CompletableFuture.supplyAsync(() -> getRawImage(imageName), fetchExecutor))
+                            .map(imageDataFuture -> imageDataFuture.thenApplyAsync(
+                                    ImageService::getTransformedImage, transformExecutor
+                            ))
+                            .map(transformedDataFuture -> transformedDataFuture.thenApply(
+                                    ImageService::getScaledImage
+                            ))
+                            .collect(Collectors.toList());
+
+            scaledImageFutures.stream()
+                    .map(CompletableFuture::join)
+                    .map(scaledImage -> String.format("Loaded scaled image: %s", scaledImage))
+                    .forEach(System.out::println);
+
+            System.out.println(fetchExecutor);
+            System.out.println(transformExecutor);
+        }
+
+        System.out.println(String.format("\nFinished loading all images. Total time: %dms", getTimeSince(start)));
+    }
+
     @Test
     public void testCompletableFuture_RenderAllScaledImages() {
         long start = System.nanoTime();
@@ -134,6 +210,29 @@ public class CompletableFutureTest2 {
         System.out.println(String.format("\nFinished rendering all images. Total time: %dms", getTimeSince(start)));
     }
 
+    @Test
+    public void testCompletableFuture_RenderAllScaledImagesOnTimer() {
+        long start = System.nanoTime();
+
+        CompletableFuture[] futures =
+                imageNames.stream()
+                        .map(imageName -> ImageService.getRawImageAsync(imageName, executor))
+                        .map(imageDataFuture -> imageDataFuture.thenCompose(
+                                imageData -> ImageService.getTransformedImageAsync(imageData, executor)
+                        ))
+                        .map(transformedDataFuture -> transformedDataFuture.thenApply(
+                                ImageService::getScaledImage
+                        ))
+                        .map(scaledDataFuture -> scaledDataFuture.thenCompose(
+                                scaledImage -> ImageService.renderImageAsync(scaledImage, executor)
+                        ))
+                        .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+
+        System.out.println(String.format("\nFinished rendering all images. Total time: %dms", getTimeSince(start)));
+    }
+
     @Test
     public void testCompletableFuture_CombineAllTransformedImages() {
         long start = System.nanoTime();
@@ -159,6 +258,56 @@ public class CompletableFutureTest2 {
         System.out.println(String.format("\nFinished rendering final image. Total time: %dms", getTimeSince(start)));
     }
 
+    @Test
+    public void testCompletableFuture_CombineAllTransformedImagesAsTree() {
+        long start = System.nanoTime();
+
+        List<CompletableFuture<TransformedImage>> transformedImageFutures =
+                imageNames.stream()
+                        .map(imageName -> CompletableFuture.supplyAsync(
+                                () -> getRawImage(imageName),
+                                executor
+                        ))
+                        .map(imageDataFuture -> imageDataFuture.thenCompose(
+                                imageData -> CompletableFuture.supplyAsync(() -> getTransformedImage(imageData), executor)
+                        ))
+                        .collect(Collectors.toList());
+
+        CompletableFuture<Void> future =
+                reduceTree(transformedImageFutures, ImageService::combineTransformedImages, executor)
+                        .thenApply(ImageService::getScaledImage)
+                        .thenAccept(ImageService::renderImage);
+
+        future.join();
+
+        System.out.println(String.format("\nFinished rendering final image. Total time: %dms", getTimeSince(start)));
+    }
+
+    @Test
+    public void testCompletableFuture_CombineAllTransformedImagesInCompletionOrder() {
+        long start = System.nanoTime();
+
+        List<CompletableFuture<TransformedImage>> transformedImageFutures =
+                imageNames.stream()
+                        .map(imageName -> CompletableFuture.supplyAsync(
+                                () -> getRawImage(imageName),
+                                executor
+                        ))
+                        .map(imageDataFuture -> imageDataFuture.thenCompose(
+                                imageData -> CompletableFuture.supplyAsync(() -> getTransformedImage(imageData), executor)
+                        ))
+                        .collect(Collectors.toList());
+
+        CompletableFuture<Void> future =
+                reduceInCompletionOrder(transformedImageFutures, ImageService::combineTransformedImages, executor)
+                        .thenApply(ImageService::getScaledImage)
+                        .thenAccept(ImageService::renderImage);
+
+        future.join();
+
+        System.out.println(String.format("\nFinished rendering final image. Total time: %dms", getTimeSince(start)));
+    }
+
     @Test
     public void testCompletableFuture_CombineAllTransformedImagesWhenTriggered() {
         long start = System.nanoTime();
@@ -0,0 +1,177 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class HedgedImageServiceTest {
+
+    private final List<String> imageNames = Arrays.asList(
+            "Cat",
+            "Dog",
+            "Elephant",
+            "Fox",
+            "Giraffe",
+            "Horse",
+            "Iguana",
+            "Jackrabbit",
+            "Kangaroo"
+    );
+
+    private final Executor executor =
+            createDaemonThreadPool(Math.min(2 * imageNames.size(), 100));
+
+    private final Map<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger interruptedCount = new AtomicInteger();
+
+    /**
+     * The first fetch of a straggler takes slowMillis, every other fetch takes fastMillis
+     */
+    private Function<String, RawImage> fetcher(List<String> stragglers, long fastMillis, long slowMillis) {
+        return imageName -> {
+            int count = fetchCounts.computeIfAbsent(imageName, k -> new AtomicInteger()).incrementAndGet();
+            try {
+                Thread.sleep(count == 1 && stragglers.contains(imageName) ? slowMillis : fastMillis);
+            } catch (InterruptedException e) {
+                interruptedCount.incrementAndGet();
+                return null;
+            }
+            return new RawImage(imageName, StringUtils.lowerCase(imageName));
+        };
+    }
+
+    private static RawImage placeholder(String imageName) {
+        return new RawImage(imageName, "?");
+    }
+
+    @Test
+    public void testGetRawImage_HedgesStragglers() {
+        long start = System.nanoTime();
+        HedgedImageService service = new HedgedImageService(
+                fetcher(Arrays.asList("Dog", "Iguana"), 100, 10_000),
+                executor, 95, 300, 0, HedgedImageServiceTest::placeholder);
+
+        CompletableFuture[] futures = imageNames.stream()
+                .map(service::getRawImage)
+                .map(rawImageFuture -> rawImageFuture.thenAccept(
+                        rawImage -> System.out.println(String.format("Got raw image: %s", rawImage))
+                ))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+        long time = getTimeSince(start);
+        System.out.println(String.format("\nFinished getting all raw images. Total time: %dms", time));
+        delay(100);
+
+        assertTrue(time < 5_000);
+        assertEquals(2, service.getHedgeCount());
+        assertEquals(2, service.getHedgeWinCount());
+        assertEquals(0, service.getDeadlineCount());
+        assertEquals("dog", service.getRawImage("Dog").join().getData());
+        assertEquals(2, interruptedCount.get());
+    }
+
+    @Test
+    public void testGetRawImage_FallsBackAtDeadline() {
+        List<String> fallbackThreads = new CopyOnWriteArrayList<>();
+        HedgedImageService service = new HedgedImageService(
+                fetcher(imageNames, 10_000, 10_000),
+                executor, 95, 100, 300, imageName -> {
+                    fallbackThreads.add(Thread.currentThread().getName());
+                    return placeholder(imageName);
+                });
+
+        long start = System.nanoTime();
+        RawImage rawImage = service.getRawImage("Cat").join();
+        long time = getTimeSince(start);
+
+        assertEquals("Cat", rawImage.getName());
+        assertEquals("?", rawImage.getData());
+        assertTrue(time < 5_000);
+        delay(100);
+        assertEquals(1, service.getHedgeCount());
+        assertEquals(0, service.getHedgeWinCount());
+        assertEquals(1, service.getDeadlineCount());
+        assertEquals(1, fallbackThreads.size());
+        assertFalse(fallbackThreads.get(0).startsWith("hedged-image-service-timer"));
+    }
+
+    @Test
+    public void testGetRawImage_LearnsHedgeDelay() {
+        HedgedImageService service = new HedgedImageService(
+                fetcher(imageNames, 20, 20), executor, 90, Long.MAX_VALUE, 0,
+                HedgedImageServiceTest::placeholder);
+
+        for (int i = 0; i < HedgedImageService.MIN_SAMPLES - 1; i++) {
+            service.getRawImage(imageNames.get(i % imageNames.size())).join();
+        }
+        assertEquals(Long.MAX_VALUE, service.getHedgeDelayMillis());
+
+        service.getRawImage("Cat").join();
+        long hedgeDelay = service.getHedgeDelayMillis();
+        assertTrue(hedgeDelay >= 20 && hedgeDelay < 1_000);
+        assertEquals(0, service.getHedgeCount());
+    }
+
+    @Test
+    public void testGetRawImage_SamplesRequestsThatHitTheDeadline() {
+        HedgedImageService service = new HedgedImageService(
+                fetcher(imageNames, 10_000, 10_000), executor, 50, Long.MAX_VALUE, 100,
+                HedgedImageServiceTest::placeholder);
+
+        for (int i = 0; i < HedgedImageService.MIN_SAMPLES; i++) {
+            assertEquals("?", service.getRawImage(imageNames.get(i % imageNames.size())).join().getData());
+        }
+        delay(100);
+
+        // The deadline is the latency of every request, so it is not hedged sooner
+        assertTrue(service.getHedgeDelayMillis() >= 100);
+        assertTrue(service.getHedgeDelayMillis() < 1_000);
+        assertEquals(HedgedImageService.MIN_SAMPLES, service.getDeadlineCount());
+    }
+
+    @Test
+    public void testGetRawImage_PrimaryFailureWaitsForBackup() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgedImageService service = new HedgedImageService(
+                imageName -> {
+                    if (calls.incrementAndGet() == 1) {
+                        try {
+                            Thread.sleep(300);
+                        } catch (InterruptedException e) {
+                            return null;
+                        }
+                        throw new IllegalStateException("Connection reset");
+                    }
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    return new RawImage(imageName, StringUtils.lowerCase(imageName));
+                },
+                executor, 95, 100, 0, HedgedImageServiceTest::placeholder);
+
+        assertEquals("cat", service.getRawImage("Cat").join().getData());
+        // The counters are updated just after the result completes
+        delay(100);
+        assertEquals(1, service.getHedgeWinCount());
+    }
+
+}
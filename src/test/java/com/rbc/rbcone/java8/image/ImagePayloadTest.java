@@ -0,0 +1,189 @@
+package com.rbc.rbcone.java8.image;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import com.rbc.rbcone.java8.util.BufferPool;
+
+public class ImagePayloadTest {
+
+    private static final String DATA = "Jackrabbit Iguana, Élan";
+
+    @Test
+    public void testOf_RoundTrips() {
+        assertEquals(DATA, ImagePayload.of(DATA).toString());
+        assertEquals(DATA, ImagePayload.of(DATA, true).toString());
+        assertEquals("", ImagePayload.of("").toString());
+        assertEquals("a?b", ImagePayload.of("a€b").toString());
+        assertTrue(ImagePayload.of(DATA, true).isDirect());
+        assertFalse(ImagePayload.of(DATA).isDirect());
+    }
+
+    @Test
+    public void testViews_MatchStringUtils() {
+        for (boolean direct : new boolean[]{false, true}) {
+            ImagePayload payload = ImagePayload.of(DATA, direct);
+            assertEquals(StringUtils.reverse(DATA), payload.reverse().toString());
+            assertEquals(StringUtils.upperCase(DATA), payload.toUpperCase().toString());
+            assertEquals(StringUtils.lowerCase(DATA), payload.toLowerCase().toString());
+            assertEquals(StringUtils.upperCase(StringUtils.reverse(StringUtils.lowerCase(DATA))),
+                    payload.toLowerCase().reverse().toUpperCase().toString());
+            assertEquals(DATA, payload.reverse().reverse().toString());
+        }
+    }
+
+    @Test
+    public void testViews_DoNotChangeTheOriginal() {
+        ImagePayload payload = ImagePayload.of(DATA);
+        payload.reverse().toUpperCase();
+        assertEquals(DATA, payload.toString());
+    }
+
+    @Test
+    public void testConcat_MatchesStringUtilsJoin() {
+        ImagePayload tac = ImagePayload.of("cat").reverse();
+        ImagePayload god = ImagePayload.of("dog").reverse();
+        assertEquals(StringUtils.join("tac", "god", ' '), ImagePayload.concat(tac, god, ' ').toString());
+        assertEquals(StringUtils.join(null, "god", ' '), ImagePayload.concat(null, god, ' ').toString());
+        assertTrue(ImagePayload.concat(ImagePayload.of("cat", true), god, ' ').isDirect());
+    }
+
+    @Test
+    public void testWrap_UsesRemainingBytes() {
+        ByteBuffer buffer = ByteBuffer.wrap("xxcatxx".getBytes(StandardCharsets.ISO_8859_1));
+        buffer.position(2).limit(5);
+        ImagePayload payload = ImagePayload.wrap(buffer);
+        assertEquals("cat", payload.toString());
+        assertEquals(3, payload.length());
+        assertEquals((byte) 'a', payload.byteAt(1));
+        assertArrayEquals("TAC".getBytes(StandardCharsets.ISO_8859_1), payload.reverse().toUpperCase().toByteArray());
+    }
+
+    @Test
+    public void testPooled_ReleasedOnlyByAndReleaseVariants() {
+        BufferPool pool = new BufferPool(1024, 4, 4, false, true);
+        ImagePayload cat = ImagePayload.of("cat", pool);
+        ImagePayload dog = ImagePayload.of("dog", pool).reverse();
+        assertTrue(cat.isPooled() && dog.isPooled());
+        assertEquals(2, pool.getOutstandingCount());
+
+        TransformedImage combined = ImageService.combineTransformedImages(
+                TransformedImage.of("Cat", cat), TransformedImage.of("Dog", dog));
+        assertEquals(3, pool.getOutstandingCount());
+        combined.getPayload().release();
+        combined = ImageService.combineTransformedImagesAndRelease(
+                TransformedImage.of("Cat", cat), TransformedImage.of("Dog", dog));
+        assertEquals("catgod ", combined.getData());
+        assertTrue(combined.getPayload().isPooled());
+        assertEquals(1, pool.getOutstandingCount());
+
+        ScaledImage scaled = ImageService.getScaledImage(combined);
+        ImageService.renderImage(scaled);
+        assertEquals(1, pool.getOutstandingCount());
+        ImageService.renderImageAndRelease(scaled);
+        pool.checkLeaks();
+        assertFalse(ImagePayload.of("cat").isPooled());
+        ImagePayload.of("cat").release();
+    }
+
+    @Test
+    public void testPooled_UnreadableAfterRelease() {
+        BufferPool pool = new BufferPool(1024, 4, 4, false, false);
+        ImagePayload cat = ImagePayload.of("cat", pool);
+        ImagePayload view = cat.reverse().toUpperCase();
+        cat.release();
+        ImagePayload dog = ImagePayload.of("dog", pool);
+        assertEquals(1, pool.getReusedCount());
+
+        for (ImagePayload released : new ImagePayload[]{cat, view}) {
+            assertReadFails(() -> released.byteAt(0));
+            assertReadFails(released::toByteArray);
+            assertReadFails(released::toString);
+            assertReadFails(() -> ImagePayload.concat(released, dog, ' '));
+            assertReadFails(() -> ImagePayload.concat(dog, released, ' '));
+        }
+        assertEquals("dog", dog.toString());
+        assertEquals(1, pool.getOutstandingCount());
+    }
+
+    @Test
+    public void testEquals_ComparesContent() {
+        assertEquals(ImagePayload.of("TAC"), ImagePayload.of("cat").reverse().toUpperCase());
+        assertEquals(ImagePayload.of("TAC").hashCode(), ImagePayload.of("cat", true).reverse().toUpperCase().hashCode());
+        assertNotEquals(ImagePayload.of("cat"), ImagePayload.of("cat").reverse());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testByteAt_OutOfBounds() {
+        ImagePayload.of("cat").reverse().byteAt(3);
+    }
+
+    @Test
+    public void testImageService_KeepsStringResults() {
+        RawImage rawImage = new RawImage("Cat", "cat");
+        TransformedImage transformedImage = new TransformedImage("Dog", "god");
+        assertEquals("tac", ImagePayload.of("cat").reverse().toString());
+        assertEquals("TACGOD ", ImagePayload.concat(
+                rawImage.getPayload().reverse(), transformedImage.getPayload(), ' ').toUpperCase().toString());
+        assertEquals("ScaledImage{name='Cat', data='TAC'}",
+                ImageService.getScaledImage(new TransformedImage("Cat", "tac")).toString());
+    }
+
+    @Test
+    public void testCanEncode() {
+        assertTrue(ImagePayload.canEncode(DATA));
+        assertTrue(ImagePayload.canEncode(""));
+        assertFalse(ImagePayload.canEncode("a€b"));
+        assertFalse(ImagePayload.canEncode("Straße"));
+        assertFalse(ImagePayload.canEncode("ÿ"));
+    }
+
+    @Test
+    public void testImageService_KeepsDataPayloadsCannotHold() {
+        RawImage rawImage = ImageService.getRawImage("Zoë €", 0, new BufferPool(1024, 4, 4, false, false));
+        assertEquals("zoë €", rawImage.getData());
+        assertEquals("STRASSE", ImageService.getScaledImage(new TransformedImage("Straße", "straße")).getData());
+        assertEquals("€tac ", ImageService.combineTransformedImages(
+                new TransformedImage("Euro", "€"), TransformedImage.of("Cat", ImagePayload.of("tac"))).getData());
+    }
+
+    @Test
+    public void testImage_DataFieldTakesPrecedence() {
+        RawImage rawImage = RawImage.of("Cat", ImagePayload.of("cat"));
+        assertEquals("cat", rawImage.getData());
+        assertSame(rawImage.getData(), rawImage.getData());
+
+        Image subclass = new RawImage("Dog", null) {
+            {
+                data = "dog";
+            }
+        };
+        assertEquals("dog", subclass.getData());
+        assertEquals("dog", subclass.getPayload().toString());
+
+        subclass.setPayload(ImagePayload.of("fox"));
+        assertEquals(null, subclass.data);
+        assertEquals("fox", subclass.getData());
+    }
+
+    private static void assertReadFails(Runnable read) {
+        try {
+            read.run();
+            fail("A released payload should not be readable");
+        } catch (IllegalStateException e) {
+            assertEquals("Payload has been released.", e.getMessage());
+        }
+    }
+
+}
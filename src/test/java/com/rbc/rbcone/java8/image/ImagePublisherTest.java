@@ -0,0 +1,221 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class ImagePublisherTest {
+
+    private final List<String> imageNames = Arrays.asList(
+            "Cat",
+            "Dog",
+            "Elephant",
+            "Fox",
+            "Giraffe",
+            "Horse",
+            "Iguana",
+            "Jackrabbit",
+            "Kangaroo"
+    );
+
+    private final Executor executor =
+            createDaemonThreadPool(Math.min(imageNames.size(), 100));
+
+    private final AtomicInteger processing = new AtomicInteger();
+    private final AtomicInteger maxProcessing = new AtomicInteger();
+    private final AtomicInteger processedCount = new AtomicInteger();
+
+    /**
+     * Takes longer to process the images with longer names
+     */
+    private final Function<String, ScaledImage> processor = imageName -> {
+        maxProcessing.accumulateAndGet(processing.incrementAndGet(), Math::max);
+        delay(50L * imageName.length());
+        processing.decrementAndGet();
+        processedCount.incrementAndGet();
+        return new ScaledImage(imageName, StringUtils.upperCase(StringUtils.reverse(imageName)));
+    };
+
+    private static class TestSubscriber implements Subscriber<ScaledImage> {
+
+        private final List<String> received = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private final long initialRequest;
+        volatile Subscription subscription;
+
+        private TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(ScaledImage scaledImage) {
+            System.out.println(String.format("Received scaled image: %s", scaledImage));
+            received.add(scaledImage.getName());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completion.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(null);
+        }
+    }
+
+    @Test
+    public void testSubscribe_EmitsInCompletionOrder() {
+        long start = System.nanoTime();
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        new ImagePublisher(imageNames, processor, executor, imageNames.size()).subscribe(subscriber);
+        subscriber.completion.join();
+
+        System.out.println(String.format("\nFinished receiving all images. Total time: %dms", getTimeSince(start)));
+        List<String> byLength = imageNames.stream()
+                .sorted(Comparator.comparing(String::length))
+                .collect(Collectors.toList());
+        assertEquals(imageNames.size(), subscriber.received.size());
+        assertEquals(byLength.get(0).length(), subscriber.received.get(0).length());
+        assertEquals("Jackrabbit", subscriber.received.get(imageNames.size() - 1));
+    }
+
+    @Test
+    public void testSubscribe_FetchesOnlyWhatIsRequested() {
+        TestSubscriber subscriber = new TestSubscriber(2);
+
+        new ImagePublisher(imageNames, processor, executor, imageNames.size()).subscribe(subscriber);
+        delay(1000);
+
+        assertEquals(2, processedCount.get());
+        assertEquals(2, subscriber.received.size());
+        assertFalse(subscriber.completion.isDone());
+
+        subscriber.subscription.request(3);
+        delay(1000);
+        assertEquals(5, processedCount.get());
+        assertEquals(imageNames.subList(0, 5).stream().sorted().collect(Collectors.toList()),
+                subscriber.received.stream().sorted().collect(Collectors.toList()));
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.completion.join();
+        assertEquals(imageNames.size(), subscriber.received.size());
+    }
+
+    @Test
+    public void testSubscribe_BoundsConcurrency() {
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        new ImagePublisher(imageNames, processor, executor, 3).subscribe(subscriber);
+        subscriber.completion.join();
+
+        assertEquals(imageNames.size(), subscriber.received.size());
+        assertEquals(3, maxProcessing.get());
+    }
+
+    @Test
+    public void testSubscribe_ProcessingFailure() {
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        new ImagePublisher(imageNames, imageName -> {
+            if (imageName.equals("Fox")) {
+                throw new IllegalStateException("Image not found");
+            }
+            return processor.apply(imageName);
+        }, executor, 2).subscribe(subscriber);
+
+        try {
+            subscriber.completion.join();
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(subscriber.completion.isCompletedExceptionally());
+        assertTrue(subscriber.received.size() < imageNames.size());
+    }
+
+    @Test
+    public void testSubscribe_Cancel() {
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(ScaledImage scaledImage) {
+                super.onNext(scaledImage);
+                subscription.cancel();
+            }
+        };
+
+        new ImagePublisher(imageNames, processor, executor, 1).subscribe(subscriber);
+        delay(2000);
+
+        assertEquals(1, subscriber.received.size());
+        assertEquals(1, processedCount.get());
+        assertFalse(subscriber.completion.isDone());
+    }
+
+    @Test
+    public void testSubscribe_InvalidRequest() {
+        TestSubscriber subscriber = new TestSubscriber(0);
+
+        new ImagePublisher(imageNames, processor, executor, 1).subscribe(subscriber);
+
+        assertTrue(subscriber.completion.isCompletedExceptionally());
+        assertEquals(0, processedCount.get());
+    }
+
+    @Test
+    public void testSubscribe_ImageService() {
+        long start = System.nanoTime();
+        CompletableFuture<Void> received = new CompletableFuture<>();
+
+        new ImagePublisher(imageNames, executor, imageNames.size()).subscribe(new Subscriber<ScaledImage>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(imageNames.size());
+            }
+
+            @Override
+            public void onNext(ScaledImage scaledImage) {
+                System.out.println(String.format("Ready after %dms: %s", getTimeSince(start), scaledImage));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                received.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                received.complete(null);
+            }
+        });
+
+        assertNull(received.join());
+        System.out.println(String.format("\nFinished receiving all images. Total time: %dms", getTimeSince(start)));
+    }
+
+}
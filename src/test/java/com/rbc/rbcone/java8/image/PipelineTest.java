@@ -0,0 +1,277 @@
+package com.rbc.rbcone.java8.image;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import com.rbc.rbcone.java8.util.BufferPool;
+
+public class PipelineTest {
+
+    private final List<String> imageNames = Arrays.asList(
+            "Cat",
+            "Dog",
+            "Elephant",
+            "Fox",
+            "Giraffe",
+            "Horse",
+            "Iguana",
+            "Jackrabbit",
+            "Kangaroo"
+    );
+
+    @Test
+    public void testPipeline_RenderAllScaledImages() {
+        long start = System.nanoTime();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        try (Pipeline<String, ScaledImage> pipeline = Pipeline.<String>builder()
+                .stage("fetch", ImageService::getRawImage, imageNames.size(), 100)
+                .stage("transform", ImageService::getTransformedImage, imageNames.size(), 100)
+                .stage("scale", ImageService::getScaledImage, cores, 100)
+                .build()) {
+
+            CompletableFuture[] futures = imageNames.stream()
+                    .map(pipeline::submit)
+                    .map(scaledImageFuture -> scaledImageFuture.thenAccept(ImageService::renderImage))
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(futures).join();
+        }
+
+        System.out.println(String.format("\nFinished rendering all images. Total time: %dms", getTimeSince(start)));
+    }
+
+    @Test
+    public void testPipeline_ReusesPooledBuffers() {
+        long start = System.nanoTime();
+        BufferPool pool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_SIZE, BufferPool.DEFAULT_THREAD_CACHE_SIZE,
+                BufferPool.DEFAULT_SHARED_CACHE_SIZE, false, true);
+        int count = 2000;
+
+        try (Pipeline<String, ScaledImage> pipeline = Pipeline.<String>builder()
+                .stage("fetch", (String imageName) -> ImageService.getRawImage(imageName, 0, pool), 4, 16)
+                .stage("transform", (RawImage rawImage) ->
+                        TransformedImage.of(rawImage.getName(), rawImage.getPayload().reverse()), 2, 16)
+                .stage("scale", ImageService::getScaledImage, 2, 16)
+                .build()) {
+
+            CompletableFuture[] futures = IntStream.range(0, count)
+                    .mapToObj(i -> imageNames.get(i % imageNames.size()) + i)
+                    .map(imageName -> pipeline.submit(imageName).thenAccept(scaledImage -> {
+                        assertEquals(StringUtils.upperCase(StringUtils.reverse(imageName)), scaledImage.getData());
+                        scaledImage.getPayload().release();
+                    }))
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(futures).join();
+        }
+
+        System.out.println(String.format("\nFinished scaling all images with %s. Total time: %dms",
+                pool, getTimeSince(start)));
+        pool.checkLeaks();
+        assertTrue(pool.getAllocatedCount() < count / 10);
+        assertEquals(count, pool.getAllocatedCount() + pool.getReusedCount());
+    }
+
+    @Test
+    public void testPipeline_RecordsStageLatencies() {
+        Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder()
+                .stage("fetch", (Integer i) -> {
+                    delay(20);
+                    return i;
+                }, 4, 100)
+                .stage("scale", (Integer i) -> i * 2, 1, 100)
+                .stage("render", (Integer i) -> {
+                    delay(5);
+                    return i;
+                }, 1, 100)
+                .build();
+
+        IntStream.range(0, 40).forEach(pipeline::submit);
+        pipeline.close();
+
+        List<Pipeline.StageMetrics> metrics = pipeline.getStageMetrics();
+        metrics.forEach(System.out::println);
+        assertEquals(Arrays.asList("fetch", "scale", "render"),
+                metrics.stream().map(Pipeline.StageMetrics::getName).collect(Collectors.toList()));
+        for (Pipeline.StageMetrics stage : metrics) {
+            assertEquals(40, stage.getServiceTime().getSnapshot().getCount());
+            assertEquals(40, stage.getQueueWait().getSnapshot().getCount());
+        }
+        long fetchTime = metrics.get(0).getServiceTime().getSnapshot().getValueAtPercentile(50);
+        long scaleTime = metrics.get(1).getServiceTime().getSnapshot().getValueAtPercentile(50);
+        assertTrue(fetchTime >= 15_000_000);
+        assertTrue(scaleTime < fetchTime);
+        // With 4 fetchers, the last items queue for about 10 fetch times
+        assertTrue(metrics.get(0).getQueueWait().getSnapshot().getMax() >= 100_000_000);
+    }
+
+    @Test
+    public void testPipeline_StageParallelismIsBounded() {
+        ConcurrencyCounter fetch = new ConcurrencyCounter(50);
+        ConcurrencyCounter transform = new ConcurrencyCounter(20);
+
+        List<CompletableFuture<Integer>> futures;
+        try (Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder()
+                .stage("fetch", fetch.wrap((Integer i) -> i * 2), 8, 1000)
+                .stage("transform", transform.wrap((Integer i) -> i + 1), 2, 1000)
+                .build()) {
+            futures = IntStream.range(0, 40)
+                    .mapToObj(pipeline::submit)
+                    .collect(Collectors.toList());
+        }
+
+        assertEquals(
+                IntStream.range(0, 40).map(i -> i * 2 + 1).boxed().collect(Collectors.toList()),
+                futures.stream().map(CompletableFuture::join).collect(Collectors.toList())
+        );
+        assertEquals(8, fetch.max.get());
+        assertEquals(2, transform.max.get());
+    }
+
+    @Test
+    public void testPipeline_Backpressure() {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder()
+                .stage("fast", (Integer i) -> i, 1, 1)
+                .stage("blocked", (Integer i) -> {
+                    gate.join();
+                    return i;
+                }, 1, 1)
+                .build();
+
+        CompletableFuture<Void> submitter = CompletableFuture.runAsync(() ->
+                IntStream.range(0, 10).forEach(pipeline::submit));
+        delay(500);
+
+        // 1 item in the blocked stage, 1 in its queue, 1 held by the fast stage and 1 in its queue
+        assertFalse(submitter.isDone());
+        assertEquals(1, pipeline.getQueueSizes()[0]);
+        assertEquals(1, pipeline.getQueueSizes()[1]);
+
+        gate.complete(null);
+        submitter.join();
+        pipeline.close();
+    }
+
+    @Test
+    public void testPipeline_FailureCompletesItemExceptionally() {
+        CompletableFuture<String> failed;
+        CompletableFuture<String> succeeded;
+        try (Pipeline<String, String> pipeline = Pipeline.<String>builder()
+                .stage("check", (String s) -> {
+                    if (s.isEmpty()) {
+                        throw new IllegalArgumentException("Empty image name");
+                    }
+                    return s;
+                }, 1, 10)
+                .stage("upper", String::toUpperCase, 1, 10)
+                .build()) {
+            failed = pipeline.submit("");
+            succeeded = pipeline.submit("cat");
+        }
+
+        assertEquals("CAT", succeeded.join());
+        assertTrue(failed.isCompletedExceptionally());
+        try {
+            failed.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testPipeline_SubmitAfterClose() {
+        Pipeline<String, String> pipeline = Pipeline.<String>builder()
+                .stage("identity", Function.identity(), 1, 1)
+                .build();
+        pipeline.close();
+        assertTrue(pipeline.submit("Cat").isCompletedExceptionally());
+    }
+
+    @Test
+    public void testPipeline_SubmitRacingCloseCompletes() {
+        for (int run = 0; run < 50; run++) {
+            Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder()
+                    .stage("identity", Function.<Integer>identity(), 1, 1)
+                    .build();
+            CompletableFuture<List<CompletableFuture<Integer>>> submitted = CompletableFuture.supplyAsync(() ->
+                    IntStream.range(0, 20).mapToObj(pipeline::submit).collect(Collectors.toList()));
+            pipeline.close();
+
+            // Every item is either processed or rejected, none is left behind the end markers
+            for (CompletableFuture<Integer> future : submitted.join()) {
+                assertTrue(future.isDone());
+            }
+        }
+    }
+
+    @Test
+    public void testPipeline_InterruptedHandOffFailsItem() {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder()
+                .stage("handoff", (Integer i) -> i, 1, 1)
+                .stage("gated", (Integer i) -> {
+                    gate.join();
+                    return i;
+                }, 1, 1)
+                .build();
+
+        // 1 item in the gated stage, 1 in its queue, and 1 held by the handoff worker
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 3)
+                .mapToObj(pipeline::submit)
+                .collect(Collectors.toList());
+        delay(500);
+        Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("pipeline-handoff-0"))
+                .forEach(Thread::interrupt);
+
+        try {
+            futures.get(2).join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        gate.complete(null);
+        pipeline.close();
+        assertEquals(Integer.valueOf(0), futures.get(0).join());
+        assertEquals(Integer.valueOf(1), futures.get(1).join());
+    }
+
+    private static class ConcurrencyCounter {
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+        private final long millis;
+
+        private ConcurrencyCounter(long millis) {
+            this.millis = millis;
+        }
+
+        private <T, R> Function<T, R> wrap(Function<T, R> function) {
+            return t -> {
+                max.accumulateAndGet(current.incrementAndGet(), Math::max);
+                delay(millis);
+                current.decrementAndGet();
+                return function.apply(t);
+            };
+        }
+    }
+
+}
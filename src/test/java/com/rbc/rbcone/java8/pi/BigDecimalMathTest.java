@@ -0,0 +1,82 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rbc.rbcone.java8.pi.BigDecimalMath.inverseSqrt;
+import static com.rbc.rbcone.java8.pi.BigDecimalMath.sqrt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BigDecimalMathTest {
+
+    @Test
+    public void testSqrt_PerfectSquares() {
+        assertEquals(new BigDecimal("0.000"), sqrt(BigDecimal.ZERO, 3));
+        assertEquals(new BigDecimal("1.00000"), sqrt(BigDecimal.ONE, 5));
+        assertEquals(new BigDecimal("12.0000000000"), sqrt(BigDecimal.valueOf(144), 10));
+        assertEquals(new BigDecimal("0.0300"), sqrt(new BigDecimal("0.0009"), 4));
+    }
+
+    @Test
+    public void testSqrt_KnownDigits() {
+        assertEquals(new BigDecimal("1.41421356237309504880168872420969807856967187537695"),
+                sqrt(BigDecimal.valueOf(2), 50));
+        assertEquals(new BigDecimal("100.02499687578100594479218787635777800159502436869631"),
+                sqrt(BigDecimal.valueOf(10005), 50));
+    }
+
+    @Test
+    public void testSqrt_LargeScale() {
+        int scale = 20_000;
+        BigDecimal[] values = {
+                BigDecimal.valueOf(2),
+                BigDecimal.valueOf(10005),
+                new BigDecimal("0.123456789"),
+                new BigDecimal("98765432109876543210.5")
+        };
+        BigDecimal ulp = BigDecimal.ONE.movePointLeft(scale);
+        for (BigDecimal a : values) {
+            BigDecimal root = sqrt(a, scale);
+            assertEquals(scale, root.scale());
+            // a lies between (root - ulp)^2 and (root + ulp)^2
+            assertTrue(root.subtract(ulp).pow(2).compareTo(a) < 0);
+            assertTrue(root.add(ulp).pow(2).compareTo(a) > 0);
+        }
+    }
+
+    @Test
+    public void testInverseSqrt() {
+        MathContext mc = new MathContext(1_000);
+        BigDecimal a = new BigDecimal("3.14159e-7");
+        BigDecimal y = inverseSqrt(a, mc);
+        BigDecimal error = BigDecimal.ONE.subtract(a.multiply(y).multiply(y)).abs();
+        assertTrue(error.compareTo(BigDecimal.ONE.movePointLeft(mc.getPrecision() - 2)) < 0);
+    }
+
+    @Test
+    public void testSqrt_CheckpointAbandons() {
+        AtomicInteger checks = new AtomicInteger();
+        try {
+            sqrt(BigDecimal.valueOf(2), 10_000, () -> {
+                if (checks.incrementAndGet() == 3) {
+                    throw new CancellationException();
+                }
+            });
+            fail("The checkpoint should have stopped the iteration");
+        } catch (CancellationException e) {
+            assertEquals(3, checks.get());
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testSqrt_Negative() {
+        sqrt(BigDecimal.valueOf(-1), 10);
+    }
+
+}
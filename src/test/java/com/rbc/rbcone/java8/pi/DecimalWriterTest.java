@@ -0,0 +1,58 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class DecimalWriterTest {
+
+    private final Random random = new Random(271828);
+
+    @Test
+    public void testWrite_SmallValues() throws IOException {
+        String[] values = {"0", "3", "-3", "3.14159", "-0.000123", "0.10", "12345678901234567890", "1E+5"};
+        for (String value : values) {
+            BigDecimal decimal = new BigDecimal(value);
+            assertEquals(decimal.toPlainString(), write(decimal));
+        }
+    }
+
+    @Test
+    public void testWrite_LargeValues() throws IOException {
+        int[] scales = {1_023, 1_024, 1_025, 5_000, 100_000};
+        for (int scale : scales) {
+            BigDecimal decimal = new BigDecimal(new BigInteger(scale * 4, random), scale);
+            assertEquals(decimal.toPlainString(), write(decimal));
+            assertEquals(decimal.negate().toPlainString(), write(decimal.negate()));
+        }
+    }
+
+    @Test
+    public void testWrite_LeadingZeroChunks() throws IOException {
+        BigDecimal decimal = new BigDecimal(BigInteger.TEN.pow(3_000).add(BigInteger.ONE), 6_000);
+        assertEquals(decimal.toPlainString(), write(decimal));
+    }
+
+    @Test
+    public void testCompute_Channel() throws IOException {
+        PiCalc piCalc = new Chudnovsky(10_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        piCalc.compute(Channels.newChannel(out));
+        assertEquals(piCalc.compute().toPlainString(), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    private String write(BigDecimal decimal) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DecimalWriter(out).write(decimal);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class NttMultiplierTest {
+
+    private final Random random = new Random(314159);
+    private final Multiplier fixture = new NttMultiplier(0);
+
+    @Test
+    public void testMultiply_Small() {
+        assertEquals(BigInteger.ZERO, fixture.multiply(BigInteger.ZERO, BigInteger.TEN));
+        assertEquals(BigInteger.valueOf(6), fixture.multiply(BigInteger.valueOf(2), BigInteger.valueOf(3)));
+        assertEquals(BigInteger.valueOf(65535L * 65535L),
+                fixture.multiply(BigInteger.valueOf(65535), BigInteger.valueOf(65535)));
+    }
+
+    @Test
+    public void testMultiply_Signs() {
+        BigInteger a = new BigInteger(5_000, random);
+        BigInteger b = new BigInteger(3_000, random);
+        assertEquals(a.multiply(b).negate(), fixture.multiply(a.negate(), b));
+        assertEquals(a.multiply(b).negate(), fixture.multiply(a, b.negate()));
+        assertEquals(a.multiply(b), fixture.multiply(a.negate(), b.negate()));
+    }
+
+    @Test
+    public void testMultiply_Random() {
+        int[] sizes = {17, 1_000, 65_536, 100_003, 1_000_000};
+        for (int aBits : sizes) {
+            for (int bBits : sizes) {
+                BigInteger a = new BigInteger(aBits, random);
+                BigInteger b = new BigInteger(bBits, random);
+                assertEquals(a.multiply(b), fixture.multiply(a, b));
+            }
+        }
+    }
+
+    @Test
+    public void testMultiply_Square() {
+        BigInteger a = BigInteger.ONE.shiftLeft(2_000_000).subtract(BigInteger.ONE);
+        assertEquals(a.multiply(a), fixture.multiply(a, a));
+    }
+
+    @Test
+    public void testMultiply_BelowThreshold() {
+        Multiplier multiplier = new NttMultiplier();
+        BigInteger a = new BigInteger(1_000, random);
+        BigInteger b = new BigInteger(NttMultiplier.DEFAULT_THRESHOLD_BITS * 4, random);
+        assertEquals(a.multiply(b), multiplier.multiply(a, b));
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PiCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private PiCalc createPiCalc(int decimalDigits) {
+        computations.incrementAndGet();
+        return new Chudnovsky(decimalDigits);
+    }
+
+    @Test
+    public void testCompute_ServesLowerPrecisionByTruncation() {
+        PiCache cache = new PiCache(this::createPiCalc);
+
+        BigDecimal pi1000 = cache.compute(1_000);
+        BigDecimal pi500 = cache.compute(500);
+        BigDecimal pi0 = cache.compute(0);
+
+        assertEquals(1, computations.get());
+        assertEquals(new Chudnovsky(1_000).compute(), pi1000);
+        assertEquals(new Chudnovsky(500).compute(), pi500);
+        assertEquals(BigDecimal.valueOf(3), pi0);
+
+        cache.compute(2_000);
+        assertEquals(2, computations.get());
+        assertEquals(2_000, cache.getMaxDigits());
+    }
+
+    @Test
+    public void testComputeAsync_DeduplicatesInFlightRequests() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        PiCache cache = new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, executor);
+
+        CompletableFuture<BigDecimal> first = cache.computeAsync(1_000);
+        CompletableFuture<BigDecimal> second = cache.computeAsync(1_000);
+        CompletableFuture<BigDecimal> lower = cache.computeAsync(100);
+        assertEquals(1, tasks.size());
+        assertFalse(first.isDone());
+
+        tasks.forEach(Runnable::run);
+
+        assertTrue(second.isDone());
+        assertEquals(1, computations.get());
+        assertEquals(first.join(), second.join());
+        assertEquals(new Chudnovsky(100).compute(), lower.join());
+    }
+
+    @Test
+    public void testCompute_TruncatesToMemoryBudget() {
+        PiCache cache = new PiCache(this::createPiCalc, PiCache.sizeOf(500), ForkJoinPool.commonPool());
+
+        assertEquals(new Chudnovsky(1_000).compute(), cache.compute(1_000));
+        assertEquals(500, cache.getMaxDigits());
+
+        cache.compute(400);
+        assertEquals(1, computations.get());
+        cache.compute(800);
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void testCompute_FailedComputationIsNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        PiCache cache = new PiCache(decimalDigits -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("First attempt fails");
+            }
+            return new Chudnovsky(decimalDigits);
+        });
+
+        assertTrue(cache.computeAsync(100).handle((pi, throwable) -> throwable != null).join());
+        assertEquals(new Chudnovsky(100).compute(), cache.compute(100));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testCompute_ReloadsDigitsFromFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        // Saves before compute returns
+        Executor executor = Runnable::run;
+        PiCache cache = new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, executor, file, executor);
+        BigDecimal pi2000 = cache.compute(2_000);
+        assertEquals(1, computations.get());
+        assertEquals("Chudnovsky", PiDigitStore.map(file).getAlgorithm());
+
+        PiCache restarted = new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, executor, file, executor);
+        assertEquals(2_000, restarted.getMaxDigits());
+        assertEquals(pi2000, restarted.compute(2_000));
+        assertEquals(new Chudnovsky(700).compute(), restarted.compute(700));
+        assertEquals(1, computations.get());
+
+        restarted.compute(3_000);
+        assertEquals(2, computations.get());
+        assertEquals(3_000, PiDigitStore.map(file).getDecimalDigits());
+    }
+
+    @Test
+    public void testCompute_IgnoresCorruptFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        Files.write(file, new byte[100]);
+
+        PiCache cache = new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, Runnable::run, file,
+                Runnable::run);
+        assertEquals(-1, cache.getMaxDigits());
+        assertEquals(new Chudnovsky(100).compute(), cache.compute(100));
+        assertEquals(100, PiDigitStore.map(file).getDecimalDigits());
+    }
+
+    @Test
+    public void testComputeAsync_CompletesBeforeSaving() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        List<Runnable> tasks = new ArrayList<>();
+        List<Runnable> writes = new ArrayList<>();
+        PiCache cache = new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, tasks::add, file, writes::add);
+
+        CompletableFuture<BigDecimal> pi = cache.computeAsync(1_000);
+        tasks.remove(0).run();
+        assertTrue(pi.isDone());
+        assertFalse(Files.exists(file));
+
+        assertTrue(tasks.isEmpty());
+        assertEquals(1, writes.size());
+        writes.remove(0).run();
+        assertEquals(1_000, PiDigitStore.map(file).getDecimalDigits());
+    }
+
+    @Test
+    public void testComputeAsync_DeduplicatesRequestsServedFromFile() {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, Runnable::run, file, Runnable::run)
+                .compute(1_000);
+        List<Runnable> tasks = new ArrayList<>();
+        PiCache restarted = new PiCache(this::createPiCalc, PiCache.DEFAULT_MEMORY_BUDGET, tasks::add, file);
+
+        CompletableFuture<BigDecimal> first = restarted.computeAsync(700);
+        CompletableFuture<BigDecimal> second = restarted.computeAsync(700);
+        CompletableFuture<BigDecimal> lower = restarted.computeAsync(300);
+        assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        assertEquals(first.join(), second.join());
+        assertEquals(new Chudnovsky(300).compute(), lower.join());
+        assertEquals(new Chudnovsky(500).compute(), restarted.compute(500));
+        assertTrue(tasks.isEmpty());
+        assertEquals(1, computations.get());
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(Parameterized.class)
+public class PiCalcAsyncTest {
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> implFactories() {
+        return Arrays.asList(new Object[][]{
+                {new PiCalcFactory(Machin.class)},
+                {new PiCalcFactory(MachinParallel.class)},
+                {new PiCalcFactory(Chudnovsky.class)},
+                {new PiCalcFactory(BrentSalamin.class)},
+        });
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    @Parameterized.Parameter
+    public PiCalcFactory piCalcFactory;
+
+    @Test
+    public void testComputeAsync() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            BigDecimal pi = piCalcFactory.create(1_000).computeAsync(executor).join();
+            assertEquals(new Chudnovsky(1_000).compute(), pi);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testComputeAsync_CancelFreesThread()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<BigDecimal> future = piCalcFactory.create(1_000_000).computeAsync(executor);
+            delay(500);
+            assertTrue(future.cancel(true));
+
+            // The only thread is only free to run this once the computation has stopped
+            long start = System.nanoTime();
+            executor.submit(() -> { }).get(20, TimeUnit.SECONDS);
+            System.out.println(String.format("%s stopped %dms after being cancelled",
+                    piCalcFactory, (System.nanoTime() - start) / 1_000_000));
+            assertTrue(future.isCancelled());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testComputeAsync_OnePendingAtATime() {
+        PiCalc piCalc = piCalcFactory.create(100);
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<BigDecimal> first = piCalc.computeAsync(tasks::add);
+        try {
+            piCalc.computeAsync(tasks::add);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("A computation is already pending.", e.getMessage());
+        }
+
+        tasks.forEach(Runnable::run);
+        assertEquals(new Chudnovsky(100).compute(), first.join());
+        assertEquals(first.join(), piCalc.computeAsync(Runnable::run).join());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testComputeAsync_CancelBeforeStart() {
+        PiCalc piCalc = piCalcFactory.create(1_000);
+        CompletableFuture<BigDecimal> future = piCalc.computeAsync(runnable -> { });
+        future.cancel(true);
+        future.join();
+    }
+
+}
@@ -3,6 +3,7 @@ package com.rbc.rbcone.java8.pi;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -59,20 +60,19 @@ public class PiCalcDemoTest {
     public void testRunAllInParallel_GetFirstResult() throws InterruptedException {
         long start = System.nanoTime();
 
-        CompletableFuture[] futures = piCalcs.entrySet().stream()
-                .map(entry -> CompletableFuture.supplyAsync(
-                        () -> new ImmutablePair<>(
-                                entry.getKey(),
-                                entry.getValue().compute()
-                        ),
-                        executor
-                ))
-                .map(resultFuture -> resultFuture.thenAccept(
-                        result -> {
+        Map<String, CompletableFuture<BigDecimal>> computations = piCalcs.entrySet().stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> entry.getValue().computeAsync(executor)
+                ));
+
+        CompletableFuture[] futures = computations.entrySet().stream()
+                .map(entry -> entry.getValue().thenAccept(
+                        pi -> {
                             System.out.println(String.format("%s completed in %dms (pi = %s)",
-                                    result.getLeft(),
+                                    entry.getKey(),
                                     getTimeSince(start),
-                                    result.getRight()
+                                    pi
                             ));
                         }
                 ))
@@ -80,7 +80,8 @@ public class PiCalcDemoTest {
 
         CompletableFuture.anyOf(futures).join();
 
-        Stream.of(futures).forEach(future -> future.cancel(true));
+        // Cancelling the computations themselves stops the losing pi calculators
+        computations.values().forEach(future -> future.cancel(true));
 
         System.out.println(String.format("\nFirst pi calculator finished. Total execution time: %dms", getTimeSince(start)));
 
@@ -0,0 +1,94 @@
+package com.rbc.rbcone.java8.pi;
+
+import com.rbc.rbcone.java8.pi.PiCalcMetrics.Phase;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PiCalcMetricsTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final PiCalcMetrics.Listener listener = new PiCalcMetrics.Listener() {
+        @Override
+        public void phaseStarted(Phase phase) {
+            events.add("started " + phase);
+        }
+
+        @Override
+        public void phaseFinished(Phase phase, long elapsedNanos, long allocatedBytes) {
+            assertTrue(elapsedNanos >= 0);
+            assertTrue(allocatedBytes >= 0);
+            events.add("finished " + phase);
+        }
+    };
+
+    @Test
+    public void testChudnovsky_Phases() throws IOException {
+        PiCalc piCalc = new Chudnovsky(10_000);
+        piCalc.getMetrics().addListener(listener);
+        piCalc.compute(Channels.newChannel(new ByteArrayOutputStream()));
+
+        assertEquals(Arrays.asList(
+                "started BINARY_SPLIT", "finished BINARY_SPLIT",
+                "started SQRT", "finished SQRT",
+                "started FINAL_DIVISION", "finished FINAL_DIVISION",
+                "started RADIX_CONVERSION", "finished RADIX_CONVERSION"
+        ), events);
+        verifyCompleted(piCalc.getMetrics(), Phase.BINARY_SPLIT);
+        assertTrue(piCalc.getMetrics().getAllocatedBytes(Phase.RADIX_CONVERSION) > 0);
+    }
+
+    @Test
+    public void testBrentSalamin_Phases() {
+        PiCalc piCalc = new BrentSalamin(10_000);
+        piCalc.getMetrics().addListener(listener);
+        piCalc.compute();
+
+        List<String> expected = new ArrayList<>(Arrays.asList("started SQRT", "finished SQRT"));
+        for (long i = 0; i < piCalc.getMetrics().getTotalTerms(); i++) {
+            expected.addAll(Arrays.asList(
+                    "started TERM_GENERATION", "finished TERM_GENERATION",
+                    "started SQRT", "finished SQRT"));
+        }
+        expected.addAll(Arrays.asList("started FINAL_DIVISION", "finished FINAL_DIVISION"));
+        assertEquals(expected, events);
+        verifyCompleted(piCalc.getMetrics(), Phase.TERM_GENERATION);
+        assertTrue(piCalc.getMetrics().getElapsedNanos(Phase.SQRT) > 0);
+    }
+
+    @Test
+    public void testMachin_Progress() {
+        for (PiCalc piCalc : Arrays.asList(new Machin(2_000), new MachinParallel(2_000))) {
+            piCalc.compute();
+            verifyCompleted(piCalc.getMetrics(), Phase.TERM_GENERATION);
+        }
+    }
+
+    @Test
+    public void testCompute_ResetsMetrics() {
+        PiCalc piCalc = new Chudnovsky(1_000);
+        piCalc.compute();
+        long terms = piCalc.getMetrics().getCompletedTerms();
+        piCalc.compute();
+        assertEquals(terms, piCalc.getMetrics().getCompletedTerms());
+    }
+
+    private void verifyCompleted(PiCalcMetrics metrics, Phase mainPhase) {
+        assertNull(metrics.getCurrentPhase());
+        assertTrue(metrics.getTotalTerms() > 0);
+        assertEquals(metrics.getTotalTerms(), metrics.getCompletedTerms());
+        assertEquals(1.0, metrics.getProgress(), 0);
+        assertTrue(metrics.getElapsedNanos(mainPhase) > 0);
+    }
+
+}
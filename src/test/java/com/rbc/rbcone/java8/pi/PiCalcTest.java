@@ -1,5 +1,7 @@
 package com.rbc.rbcone.java8.pi;
 
+import com.rbc.rbcone.java8.util.DigitFile;
+import com.rbc.rbcone.java8.util.DigitVerifier;
 import org.junit.FixMethodOrder;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -12,6 +14,7 @@ import org.junit.runners.MethodSorters;
 import org.junit.runners.Parameterized;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
@@ -20,14 +23,14 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.stream.IntStream;
 
-import static com.rbc.rbcone.java8.util.FileUtils.readFromFile;
+import static com.rbc.rbcone.java8.util.FileUtils.mapDigitFile;
 import static org.junit.Assert.assertEquals;
 
 @RunWith(Parameterized.class)
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class PiCalcTest {
 
-    private static BigDecimal PI;
+    private static DigitFile PI;
     private static final String PI_FILE = "pi/pi-million.txt";
     private static final SimpleDateFormat SDF = new SimpleDateFormat("HH:mm:ss.SSS");
 
@@ -54,10 +57,9 @@ public class PiCalcTest {
 
     static {
         try {
-            System.out.println(String.format("Reading value of pi from %s ...", PI_FILE));
-            String piString = readFromFile(PI_FILE);
-            PI = new BigDecimal(piString);
-            System.out.println("Finished reading from file\n\n");
+            System.out.println(String.format("Mapping value of pi from %s ...", PI_FILE));
+            PI = mapDigitFile(PI_FILE);
+            System.out.println("Finished mapping file\n\n");
         } catch (IOException e) {
             e.printStackTrace();
             System.exit(1);
@@ -152,8 +154,15 @@ public class PiCalcTest {
     private void verifyCompute(int digits, boolean profile) {
         PiCalc fixture = createPiCalc(digits);
         BigDecimal result = profile ? profileCompute(fixture) : fixture.compute();
-        BigDecimal expected = PI.setScale(digits, BigDecimal.ROUND_FLOOR);
-        assertEquals(expected, result);
+        assertEquals(digits, result.scale());
+        DigitVerifier verifier = new DigitVerifier(PI);
+        try {
+            new DecimalWriter(verifier).write(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        assertEquals(String.format("First mismatch at position %d", verifier.getMismatch()),
+                -1, verifier.getMismatch());
     }
 
     private void verifyComputeRandomDigits(int lower, int upper) {
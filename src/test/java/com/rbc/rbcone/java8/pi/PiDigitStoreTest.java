@@ -0,0 +1,118 @@
+package com.rbc.rbcone.java8.pi;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PiDigitStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final BigDecimal pi = new Chudnovsky(10_000).compute();
+
+    @Test
+    public void testWrite_RoundTrip() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        PiDigitStore.write(file, "Chudnovsky", pi);
+        PiDigitStore store = PiDigitStore.map(file);
+
+        assertEquals("Chudnovsky", store.getAlgorithm());
+        assertEquals(10_000, store.getDecimalDigits());
+        assertEquals(pi, store.toBigDecimal());
+        assertEquals(PiDigitStore.HEADER_SIZE + (10_001 + 18) / 19 * 8, Files.size(file));
+
+        String digits = pi.unscaledValue().toString();
+        for (int i = 0; i < digits.length(); i++) {
+            assertEquals(digits.charAt(i) - '0', store.digitAt(i));
+        }
+    }
+
+    @Test
+    public void testToBigDecimal_Truncates() throws IOException {
+        PiDigitStore store = PiDigitStore.write(folder.getRoot().toPath().resolve("pi.digits"), "Chudnovsky", pi);
+
+        int[] precisions = {0, 1, 17, 18, 19, 36, 37, 38, 1_000, 9_999, 10_000};
+        for (int decimalDigits : precisions) {
+            assertEquals(pi.setScale(decimalDigits, PiCalc.ROUND), store.toBigDecimal(decimalDigits));
+        }
+    }
+
+    @Test
+    public void testWrite_ReplacesFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        PiDigitStore.write(file, "Machin", pi.setScale(100, PiCalc.ROUND));
+        PiDigitStore.write(file, "Chudnovsky", pi);
+
+        assertEquals(10_000, PiDigitStore.map(file).getDecimalDigits());
+        assertEquals("Chudnovsky", PiDigitStore.map(file).getAlgorithm());
+    }
+
+    @Test
+    public void testMap_DetectsCorruption() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("pi.digits");
+        PiDigitStore.write(file, "Chudnovsky", pi);
+        long[] offsets = {0, 12, 30, PiDigitStore.HEADER_SIZE + 100, Files.size(file) - 1};
+
+        for (long offset : offsets) {
+            Path corrupt = folder.getRoot().toPath().resolve("corrupt" + offset + ".digits");
+            Files.copy(file, corrupt);
+            try (RandomAccessFile raf = new RandomAccessFile(corrupt.toFile(), "rw")) {
+                raf.seek(offset);
+                int b = raf.read();
+                raf.seek(offset);
+                raf.write(b ^ 0x10);
+            }
+            assertMapFails(corrupt);
+        }
+
+        Path truncated = folder.getRoot().toPath().resolve("truncated.digits");
+        Files.copy(file, truncated);
+        try (RandomAccessFile raf = new RandomAccessFile(truncated.toFile(), "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+        assertMapFails(truncated);
+    }
+
+    @Test
+    public void testMap_LoadsMillionDigitsQuickly() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("million.digits");
+        BigDecimal value = new BigDecimal(pi.unscaledValue().pow(100), 1_000_000);
+        PiDigitStore.write(file, "Test", value);
+
+        long start = System.nanoTime();
+        PiDigitStore store = PiDigitStore.map(file);
+        BigDecimal prefix = store.toBigDecimal(1_000);
+        long mapMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        BigDecimal full = store.toBigDecimal();
+        long convertMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println(String.format("Mapped %d digits and read 1000 of them in %dms, converted all of them in %dms",
+                store.getDecimalDigits(), mapMillis, convertMillis));
+        assertEquals(value, full);
+        assertEquals(value.setScale(1_000, PiCalc.ROUND), prefix);
+        assertTrue(Files.size(file) < value.precision() / 2);
+    }
+
+    private static void assertMapFails(Path file) {
+        try {
+            PiDigitStore.map(file);
+            fail(String.format("%s should not be valid", file));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveExecutorTest {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private static long runAll(AdaptiveExecutor executor, Runnable task, int count) {
+        long start = System.nanoTime();
+        CompletableFuture[] futures = IntStream.range(0, count)
+                .mapToObj(i -> CompletableFuture.runAsync(task, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+        return getTimeSince(start);
+    }
+
+    /**
+     * Keeps the core busy for the given CPU time
+     */
+    private static void compute(long cpuNanos) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long end = threads.getCurrentThreadCpuTime() + cpuNanos;
+        long sum = 0;
+        while (threads.getCurrentThreadCpuTime() < end) {
+            for (int i = 0; i < 10_000; i++) {
+                sum += i * i;
+            }
+        }
+        if (sum == 42) {
+            System.out.println(sum);
+        }
+    }
+
+    @Test
+    public void testExecute_ScalesOutForBlockingTasks() {
+        try (AdaptiveExecutor executor = new AdaptiveExecutor("fetch", 1, 100)) {
+            long elapsed = runAll(executor, () -> delay(200), 500);
+
+            System.out.println(String.format("%s, took %dms", executor, elapsed));
+            assertTrue(executor.getLargestPoolSize() >= 50);
+            assertTrue(executor.getWaitComputeRatio() > 10);
+            assertTrue(elapsed < 10_000);
+        }
+    }
+
+    @Test
+    public void testExecute_StaysNearCoresForCpuBoundTasks() {
+        try (AdaptiveExecutor executor = new AdaptiveExecutor("transform", 1, 100)) {
+            long elapsed = runAll(executor, () -> compute(5_000_000), 300);
+
+            System.out.println(String.format("%s, took %dms", executor, elapsed));
+            assertTrue(executor.getLargestPoolSize() <= CORES * 4);
+        }
+    }
+
+    @Test
+    public void testAdjust_ShrinksWhenIdle() {
+        try (AdaptiveExecutor executor = new AdaptiveExecutor("idle", 2, 100, 50)) {
+            runAll(executor, () -> delay(100), 200);
+            assertTrue(executor.getLargestPoolSize() > 2);
+
+            delay(1000);
+            assertEquals(2, executor.getTargetPoolSize());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_MinAboveMax() {
+        new AdaptiveExecutor("invalid", 10, 5);
+    }
+
+}
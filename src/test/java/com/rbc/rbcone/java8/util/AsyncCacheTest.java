@@ -0,0 +1,106 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncCacheTest {
+
+    private final Map<String, CompletableFuture<String>> loads = new HashMap<>();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private CompletableFuture<String> load(String key) {
+        loadCount.incrementAndGet();
+        return loads.computeIfAbsent(key, k -> new CompletableFuture<>());
+    }
+
+    @Test
+    public void testGet_CoalescesInFlightLoads() {
+        AsyncCache<String, String> cache = new AsyncCache<>(this::load, 10, 0);
+
+        CompletableFuture<String> first = cache.get("Cat");
+        CompletableFuture<String> second = cache.get("Cat");
+        assertNotSame(first, second);
+        assertFalse(first.isDone());
+
+        loads.get("Cat").complete("cat");
+        assertEquals("cat", second.join());
+        assertEquals("cat", cache.get("Cat").join());
+
+        assertEquals(1, loadCount.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCoalescedCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testGet_CallerCannotCompleteSharedLoad() {
+        AsyncCache<String, String> cache = new AsyncCache<>(this::load, 10, 0);
+
+        CompletableFuture<String> first = cache.get("Cat");
+        CompletableFuture<String> second = cache.get("Cat");
+        first.complete("dog");
+        second.cancel(false);
+        CompletableFuture<String> third = cache.get("Cat");
+
+        loads.get("Cat").complete("cat");
+        assertEquals("cat", third.join());
+        assertEquals("cat", cache.getIfPresent("Cat"));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testGet_EvictsLeastRecentlyUsed() {
+        AsyncCache<String, String> cache = new AsyncCache<>(
+                key -> CompletableFuture.completedFuture(key.toLowerCase()), 2, 0);
+
+        cache.get("Cat").join();
+        cache.get("Dog").join();
+        cache.get("Cat").join();
+        cache.get("Fox").join();
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("cat", cache.getIfPresent("Cat"));
+        assertEquals(null, cache.getIfPresent("Dog"));
+    }
+
+    @Test
+    public void testGet_ExpiresAfterTtl() {
+        AsyncCache<String, String> cache = new AsyncCache<>(
+                key -> CompletableFuture.completedFuture(key.toLowerCase()), 10, 100);
+
+        cache.get("Cat").join();
+        cache.get("Cat").join();
+        delay(200);
+        cache.get("Cat").join();
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testGet_FailedLoadIsNotCached() {
+        AsyncCache<String, String> cache = new AsyncCache<>(this::load, 10, 0);
+
+        CompletableFuture<String> failed = cache.get("Cat");
+        loads.remove("Cat").completeExceptionally(new CustomException("Cats are not allowed!"));
+        assertTrue(failed.isCompletedExceptionally());
+
+        CompletableFuture<String> retried = cache.get("Cat");
+        loads.get("Cat").complete("cat");
+        assertEquals("cat", retried.join());
+        assertEquals(2, loadCount.get());
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static org.junit.Assert.assertEquals;
+
+public class AsyncEventSinkTest {
+
+    @Test
+    public void testLog_KeepsEachThreadsOrder() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int threads = 4;
+        int events = 10_000;
+
+        try (AsyncEventSink sink = new AsyncEventSink(new PrintStream(bytes), 65536)) {
+            CompletableFuture[] futures = IntStream.range(0, threads)
+                    .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                        for (int i = 0; i < events; i++) {
+                            sink.log("%s %s", t, i);
+                        }
+                    }, createDaemonThreadPool(1)))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+            sink.flush();
+
+            List<String> lines = Arrays.asList(bytes.toString().split(System.lineSeparator()));
+            assertEquals(0, sink.getDroppedCount());
+            assertEquals(threads * events, sink.getWrittenCount());
+            assertEquals(threads * events, lines.size());
+            for (int t = 0; t < threads; t++) {
+                String prefix = t + " ";
+                List<Integer> seen = lines.stream()
+                        .filter(line -> line.startsWith(prefix))
+                        .map(line -> Integer.valueOf(line.substring(prefix.length())))
+                        .collect(Collectors.toList());
+                assertEquals(IntStream.range(0, events).boxed().collect(Collectors.toList()), seen);
+            }
+        }
+    }
+
+    @Test
+    public void testLog_DropsWhenFull() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PrintStream stalled = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        try (AsyncEventSink sink = new AsyncEventSink(stalled, 8)) {
+            sink.log("first", null);
+            writing.await();
+            for (int i = 0; i < 20; i++) {
+                sink.log("event %s", i);
+            }
+            assertEquals(12, sink.getDroppedCount());
+            release.countDown();
+            sink.flush();
+            assertEquals(9, sink.getWrittenCount());
+        }
+    }
+
+    @Test
+    public void testClose_PrintsQueuedEvents() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AsyncEventSink sink = new AsyncEventSink(new PrintStream(bytes));
+        sink.log("Rendering image data for %s...", "Cat");
+        sink.log("Combining transformed data for %s and %s...", "Cat", "Dog");
+        sink.close();
+        sink.log("Too late", null);
+
+        assertEquals("Rendering image data for Cat..." + System.lineSeparator()
+                + "Combining transformed data for Cat and Dog..." + System.lineSeparator(), bytes.toString());
+        assertEquals(1, sink.getDroppedCount());
+    }
+
+    @Test
+    public void testClose_RacingLogIsWrittenOrDropped() {
+        PrintStream discard = new PrintStream(new ByteArrayOutputStream());
+        for (int run = 0; run < 50; run++) {
+            AsyncEventSink sink = new AsyncEventSink(discard, 1024);
+            CompletableFuture<Void> logging = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 500; i++) {
+                    sink.log("event %s", i);
+                }
+            }, createDaemonThreadPool(1));
+            sink.close();
+            logging.join();
+
+            // No event is lost between the two counts
+            assertEquals(500, sink.getWrittenCount() + sink.getDroppedCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacity_NotPowerOfTwo() {
+        new AsyncEventSink(System.out, 1000);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BufferPoolTest {
+
+    private final BufferPool pool = new BufferPool(1024, 2, 4, false, true);
+
+    @Test
+    public void testAllocate_RoundsUpToSizeClass() {
+        assertCapacity(BufferPool.MIN_SIZE, 0);
+        assertCapacity(BufferPool.MIN_SIZE, 1);
+        assertCapacity(BufferPool.MIN_SIZE, 64);
+        assertCapacity(128, 65);
+        assertCapacity(1024, 1000);
+        assertCapacity(1025, 1025);
+        pool.checkLeaks();
+    }
+
+    private void assertCapacity(int capacity, int size) {
+        PooledBuffer pooled = pool.allocate(size);
+        ByteBuffer buffer = pooled.buffer();
+        assertEquals(capacity, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(size, buffer.limit());
+        pooled.release();
+    }
+
+    @Test
+    public void testAllocate_ReusesReleasedBuffers() {
+        PooledBuffer first = pool.allocate(100);
+        ByteBuffer buffer = first.buffer();
+        buffer.put((byte) 1);
+        first.release();
+
+        PooledBuffer second = pool.allocate(120);
+        assertSame(buffer, second.buffer());
+        assertEquals(0, second.buffer().position());
+        assertEquals(120, second.buffer().limit());
+        assertNotSame(buffer, pool.allocate(100).buffer());
+        assertNotSame(buffer, pool.allocate(200).buffer());
+
+        assertEquals(3, pool.getAllocatedCount());
+        assertEquals(1, pool.getReusedCount());
+        assertEquals(3, pool.getOutstandingCount());
+    }
+
+    @Test
+    public void testRelease_SharesBuffersAcrossThreads() {
+        // More buffers than the releasing thread can cache, so some go to the shared cache
+        PooledBuffer[] pooled = new PooledBuffer[4];
+        for (int i = 0; i < pooled.length; i++) {
+            pooled[i] = pool.allocate(64);
+        }
+        CompletableFuture.runAsync(() -> {
+            for (PooledBuffer p : pooled) {
+                p.release();
+            }
+        }).join();
+
+        for (int i = 0; i < 2; i++) {
+            pool.allocate(64).release();
+        }
+        assertEquals(4, pool.getAllocatedCount());
+        assertEquals(2, pool.getReusedCount());
+    }
+
+    @Test
+    public void testRelease_Twice() {
+        PooledBuffer pooled = pool.allocate(64);
+        pooled.release();
+        try {
+            pooled.release();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(pooled.isReleased());
+        }
+        try {
+            pooled.buffer();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, pool.getOutstandingCount());
+        }
+    }
+
+    @Test
+    public void testCheckLeaks_ReportsAllocationSites() {
+        pool.allocate(64).release();
+        pool.allocate(64);
+        pool.allocate(2048);
+        try {
+            pool.checkLeaks();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("2 buffer(s) not released.", e.getMessage());
+            assertEquals(2, e.getSuppressed().length);
+            assertEquals("testCheckLeaks_ReportsAllocationSites", e.getSuppressed()[0].getStackTrace()[1].getMethodName());
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static com.rbc.rbcone.java8.util.FileUtils.mapDigitFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DigitVerifierTest {
+
+    private static DigitFile pi;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void mapFile() throws IOException {
+        pi = mapDigitFile("pi/pi-million.txt");
+    }
+
+    @Test
+    public void testDigitFile_RandomAccess() {
+        assertEquals(1_000_002, pi.length());
+        assertEquals('3', pi.charAt(0));
+        assertEquals('.', pi.charAt(1));
+        assertEquals("3.14159", pi.subSequence(0, 7).toString());
+        assertEquals("26535", pi.subSequence(7, 20).subSequence(0, 5).toString());
+        assertEquals('1', pi.charAt(pi.length() - 1));
+    }
+
+    @Test
+    public void testVerify_Match() throws IOException {
+        DigitVerifier verifier = new DigitVerifier(pi);
+        write(verifier, "3.1415");
+        write(verifier, "9265");
+        assertTrue(verifier.isMatch());
+        assertEquals(10, verifier.getPosition());
+    }
+
+    @Test
+    public void testVerify_Mismatch() throws IOException {
+        DigitVerifier verifier = new DigitVerifier(pi);
+        write(verifier, "3.1415");
+        write(verifier, "9275");
+        write(verifier, "3.1415");
+        assertFalse(verifier.isMatch());
+        assertEquals(8, verifier.getMismatch());
+    }
+
+    @Test
+    public void testVerify_PastEnd() throws IOException {
+        DigitVerifier verifier = new DigitVerifier(pi.subSequence(0, 4));
+        write(verifier, "3.141");
+        assertEquals(4, verifier.getMismatch());
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void testVerify_WriteAfterClose() throws IOException {
+        DigitVerifier verifier = new DigitVerifier(pi);
+        write(verifier, "3.14");
+        verifier.close();
+        write(verifier, "15");
+    }
+
+    @Test
+    public void testMapDigitFile_FromJar() throws IOException {
+        File jar = folder.newFile("digits.jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("digits/pi-short.txt"));
+            out.write("3.14159\n".getBytes(StandardCharsets.US_ASCII));
+            out.closeEntry();
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, null)) {
+            thread.setContextClassLoader(loader);
+            assertEquals("3.14159", mapDigitFile("digits/pi-short.txt").toString());
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private void write(DigitVerifier verifier, String s) throws IOException {
+        verifier.write(ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+}
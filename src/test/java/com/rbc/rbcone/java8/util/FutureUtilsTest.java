@@ -0,0 +1,187 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.FutureUtils.reduceInCompletionOrder;
+import static com.rbc.rbcone.java8.util.FutureUtils.reduceTree;
+import static com.rbc.rbcone.java8.util.FutureUtils.withTimeout;
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FutureUtilsTest {
+
+    private static final int SIZE = 37;
+
+    private final Executor executor = createDaemonThreadPool(8);
+
+    /**
+     * Associative but not commutative, so the result also checks the order
+     */
+    private final BinaryOperator<String> concat = (s1, s2) -> s1 + s2;
+
+    private final String expected = IntStream.range(0, SIZE)
+            .mapToObj(i -> String.valueOf((char) ('A' + i)))
+            .collect(Collectors.joining());
+
+    private List<CompletableFuture<String>> newFutures() {
+        return IntStream.range(0, SIZE)
+                .mapToObj(i -> new CompletableFuture<String>())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Completes the futures in a random order
+     */
+    private void completeShuffled(List<CompletableFuture<String>> futures, long seed) {
+        List<Integer> order = IntStream.range(0, futures.size()).boxed().collect(Collectors.toList());
+        Collections.shuffle(order, new Random(seed));
+        for (int i : order) {
+            futures.get(i).complete(String.valueOf((char) ('A' + i)));
+        }
+    }
+
+    @Test
+    public void testReduceTree_KeepsListOrder() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<CompletableFuture<String>> futures = newFutures();
+            CompletableFuture<String> result = reduceTree(futures, concat, executor);
+            completeShuffled(futures, seed);
+            assertEquals(expected, result.join());
+        }
+    }
+
+    @Test
+    public void testReduceInCompletionOrder_KeepsListOrder() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<CompletableFuture<String>> futures = newFutures();
+            CompletableFuture<String> result = reduceInCompletionOrder(futures, concat, executor);
+            completeShuffled(futures, seed);
+            assertEquals(expected, result.join());
+        }
+    }
+
+    @Test
+    public void testReduce_SingleFuture() {
+        CompletableFuture<String> future = CompletableFuture.completedFuture("A");
+        assertSame(future, reduceTree(Collections.singletonList(future), concat, executor));
+        assertEquals("A", reduceInCompletionOrder(Collections.singletonList(future), concat, executor).join());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReduceTree_Empty() {
+        reduceTree(new ArrayList<CompletableFuture<String>>(), concat, executor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReduceInCompletionOrder_Empty() {
+        reduceInCompletionOrder(new ArrayList<CompletableFuture<String>>(), concat, executor);
+    }
+
+    @Test
+    public void testReduceInCompletionOrder_FailsFast() {
+        List<CompletableFuture<String>> futures = newFutures();
+        CompletableFuture<String> result = reduceInCompletionOrder(futures, concat, executor);
+        IllegalStateException failure = new IllegalStateException("Not found");
+        futures.get(SIZE / 2).completeExceptionally(failure);
+        assertTrue(result.isCompletedExceptionally());
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void testReduceTree_PropagatesOperatorFailure() {
+        List<CompletableFuture<String>> futures = newFutures();
+        CompletableFuture<String> result = reduceTree(futures, (s1, s2) -> {
+            throw new IllegalStateException("Cannot combine");
+        }, executor);
+        completeShuffled(futures, 0);
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testReduceInCompletionOrder_CombinesBeforeSlowFuture() {
+        List<CompletableFuture<String>> futures = newFutures();
+        AtomicInteger combines = new AtomicInteger();
+        CompletableFuture<String> result = reduceInCompletionOrder(futures, (s1, s2) -> {
+            combines.incrementAndGet();
+            return s1 + s2;
+        }, executor);
+
+        // Everything but the last future is available: all of it gets combined up front
+        for (int i = 0; i < SIZE - 1; i++) {
+            futures.get(i).complete(String.valueOf((char) ('A' + i)));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (combines.get() < SIZE - 2 && System.currentTimeMillis() < deadline) {
+            delay(10);
+        }
+        assertEquals(SIZE - 2, combines.get());
+        assertFalse(result.isDone());
+
+        futures.get(SIZE - 1).complete(String.valueOf((char) ('A' + SIZE - 1)));
+        assertEquals(expected, result.join());
+        assertEquals(SIZE - 1, combines.get());
+    }
+
+    @Test
+    public void testWithTimeout_CompletesOnExecutor() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Boolean> onOtherThread = withTimeout(future, 1000, executor)
+                .thenApply(value -> Thread.currentThread() != caller);
+
+        future.complete("A");
+        assertTrue(onOtherThread.join());
+    }
+
+    @Test
+    public void testWithTimeout_CancelsSlowFuture() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> result = withTimeout(future, 100, executor);
+        try {
+            result.join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        delay(100);
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testWithTimeout_CancelPropagatesToFuture() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> result = withTimeout(future, 1000, executor);
+
+        assertTrue(result.cancel(false));
+        assertTrue(future.isCancelled());
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets_RelativePrecision() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.bucketMidpoint(LatencyHistogram.bucketIndex(value)));
+        }
+        int previous = -1;
+        for (long value = 1; value <= LatencyHistogram.MAX_VALUE; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index >= previous && index < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(LatencyHistogram.bucketLowerBound(index) <= value);
+            assertTrue(LatencyHistogram.bucketLowerBound(index + 1) > value);
+            long midpoint = LatencyHistogram.bucketMidpoint(index);
+            assertTrue(Math.abs(midpoint - value) <= value / 32 + 1);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void testSnapshot_Percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500_500, snapshot.getMean(), 1e-9);
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_000, snapshot.getValueAtPercentile(50), 500_000 / 32);
+        assertEquals(990_000, snapshot.getValueAtPercentile(99), 990_000 / 32);
+        assertEquals(999_000, snapshot.getValueAtPercentile(99.9), 999_000 / 32);
+        assertEquals(1_000_000, snapshot.getValueAtPercentile(100));
+        assertTrue(snapshot.getThroughput() > 0);
+        System.out.println(snapshot);
+    }
+
+    @Test
+    public void testRecord_ClampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, snapshot.getMax());
+        assertEquals(LatencyHistogram.MAX_VALUE / 2.0, snapshot.getMean(), 1);
+
+        histogram.record(Long.MAX_VALUE);
+        assertTrue(histogram.getSnapshot().getMean() > 0);
+    }
+
+    @Test
+    public void testRecord_FromManyThreads() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        CompletableFuture[] futures = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    for (int j = 0; j < 100_000; j++) {
+                        histogram.record(j);
+                    }
+                }, createDaemonThreadPool(1)))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        assertEquals(800_000, histogram.getSnapshot().getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getSnapshot().getCount());
+        assertEquals(0, histogram.getSnapshot().getValueAtPercentile(99));
+    }
+
+}
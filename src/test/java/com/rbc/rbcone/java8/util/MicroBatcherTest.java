@@ -0,0 +1,79 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createDaemonThreadPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MicroBatcherTest {
+
+    private final Executor executor = createDaemonThreadPool(4);
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private List<Integer> square(List<Integer> batch) {
+        batches.add(new ArrayList<>(batch));
+        return batch.stream().map(i -> i * i).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSubmit_DispatchesFullBatches() {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>(this::square, 5, 60_000, executor)) {
+            List<CompletableFuture<Integer>> futures = IntStream.range(0, 10)
+                    .mapToObj(batcher::submit)
+                    .collect(Collectors.toList());
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i * i, (int) futures.get(i).join());
+            }
+            assertEquals(2, batches.size());
+            assertEquals(5, batches.get(0).size());
+            assertEquals(0, batcher.getScheduledFlushCount());
+        }
+    }
+
+    @Test
+    public void testSubmit_DispatchesPartialBatchAfterDelay() {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>(this::square, 100, 50, executor)) {
+            CompletableFuture<Integer> first = batcher.submit(3);
+            CompletableFuture<Integer> second = batcher.submit(4);
+
+            assertEquals(9, (int) first.join());
+            assertEquals(16, (int) second.join());
+            assertEquals(1, batches.size());
+        }
+    }
+
+    @Test
+    public void testSubmit_BatchFailureFailsEveryRequest() {
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>(
+                batch -> {
+                    throw new IllegalStateException("Batch failed");
+                }, 2, 60_000, executor)) {
+            CompletableFuture<Integer> first = batcher.submit(1);
+            CompletableFuture<Integer> second = batcher.submit(2);
+
+            assertTrue(first.handle((result, throwable) -> throwable != null).join());
+            assertTrue(second.handle((result, throwable) -> throwable != null).join());
+        }
+    }
+
+    @Test
+    public void testClose_FlushesPendingRequests() {
+        MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>(this::square, 100, 60_000, executor);
+        CompletableFuture<Integer> future = batcher.submit(5);
+        batcher.close();
+
+        assertEquals(25, (int) future.join());
+        assertTrue(batcher.submit(6).isCompletedExceptionally());
+    }
+
+}
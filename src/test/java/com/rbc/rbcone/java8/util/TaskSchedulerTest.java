@@ -0,0 +1,80 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSchedulerTest {
+
+    private static long runOnSingleThreadedPool(Runnable task, int count) {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        long start = System.nanoTime();
+        CompletableFuture[] futures = IntStream.range(0, count)
+                .mapToObj(i -> CompletableFuture.runAsync(task, pool))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+        long time = getTimeSince(start);
+        pool.shutdown();
+        return time;
+    }
+
+    @Test
+    public void testBlock_CompensatesForkJoinPool() {
+        long unmanaged = runOnSingleThreadedPool(() -> delay(300), 4);
+        long managed = runOnSingleThreadedPool(() -> TaskScheduler.block(() -> delay(300)), 4);
+
+        System.out.println(String.format("Unmanaged: %dms, managed: %dms", unmanaged, managed));
+        assertTrue(unmanaged >= 1200);
+        assertTrue(managed < 900);
+    }
+
+    @Test
+    public void testBlock_OutsideForkJoinPool() {
+        assertEquals("cat", TaskScheduler.block(() -> "cat"));
+    }
+
+    @Test
+    public void testSupply_RoutesToPools() {
+        try (TaskScheduler scheduler = new TaskScheduler(2, 10)) {
+            Thread cpuThread = scheduler.supplyCpu(Thread::currentThread).join();
+            Thread blockingThread = scheduler.supplyBlocking(Thread::currentThread).join();
+
+            assertTrue(cpuThread instanceof ForkJoinWorkerThread);
+            assertTrue(cpuThread.getName().startsWith("cpu-worker-"));
+            assertFalse(blockingThread instanceof ForkJoinWorkerThread);
+        }
+    }
+
+    @Test
+    public void testSupplyBlocking_DoesNotStallCpuWork() {
+        try (TaskScheduler scheduler = new TaskScheduler(2, 100)) {
+            CompletableFuture[] fetches = IntStream.range(0, 200)
+                    .mapToObj(i -> scheduler.supplyBlocking(() -> delay(1000)))
+                    .toArray(CompletableFuture[]::new);
+
+            long start = System.nanoTime();
+            long sum = scheduler.supplyCpu(() -> IntStream.range(0, 1000).asLongStream().sum()).join();
+            long cpuTime = getTimeSince(start);
+
+            start = System.nanoTime();
+            CompletableFuture.supplyAsync(() -> 42, ForkJoinPool.commonPool()).join();
+            long commonPoolTime = getTimeSince(start);
+
+            System.out.println(String.format("CPU task: %dms, common pool task: %dms", cpuTime, commonPoolTime));
+            assertEquals(499_500, sum);
+            assertTrue(cpuTime < 500);
+            assertTrue(commonPoolTime < 500);
+            CompletableFuture.allOf(fetches).join();
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.rbc.rbcone.java8.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static com.rbc.rbcone.java8.util.ThreadUtils.createBlockingExecutor;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delay;
+import static com.rbc.rbcone.java8.util.ThreadUtils.delayAsync;
+import static com.rbc.rbcone.java8.util.ThreadUtils.getTimeSince;
+import static com.rbc.rbcone.java8.util.ThreadUtils.isVirtualThreadSupported;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThreadUtilsTest {
+
+    @Test
+    public void testCreateBlockingExecutor_RunsBlockingTasksConcurrently() {
+        int tasks = 200;
+        Executor executor = createBlockingExecutor(tasks);
+        long start = System.nanoTime();
+
+        CompletableFuture[] futures = IntStream.range(0, tasks)
+                .mapToObj(i -> CompletableFuture.runAsync(() -> delay(500), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        long elapsed = getTimeSince(start);
+        System.out.println(String.format("%d blocking tasks on %s threads took %dms",
+                tasks, isVirtualThreadSupported() ? "virtual" : "platform", elapsed));
+        assertTrue(elapsed < 5_000);
+    }
+
+    @Test
+    public void testDelayAsync_SharesOneTimerThread() {
+        int delays = 10_000;
+        int threadsBefore = Thread.activeCount();
+        long start = System.nanoTime();
+
+        CompletableFuture[] futures = IntStream.range(0, delays)
+                .mapToObj(i -> delayAsync(500))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        long elapsed = getTimeSince(start);
+        System.out.println(String.format("%d delays took %dms", delays, elapsed));
+        assertTrue(elapsed >= 500);
+        assertTrue(elapsed < 3_000);
+        assertTrue(Thread.activeCount() <= threadsBefore + 1);
+    }
+
+    @Test
+    public void testDelayAsync_Cancel() {
+        CompletableFuture<Void> future = delayAsync(200);
+        CompletableFuture<String> next = future.thenApply(v -> "done");
+
+        assertTrue(future.cancel(false));
+        assertTrue(next.isCompletedExceptionally());
+        delay(400);
+        assertTrue(future.isCancelled());
+        assertFalse(future.complete(null));
+    }
+
+    @Test
+    public void testDelayAsync_CancelSupplierCancelsDelay() {
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Boolean> future = delayAsync(60_000, () -> ran.getAndSet(true), Runnable::run);
+        int pending = ThreadUtils.getPendingDelayCount();
+
+        assertTrue(future.cancel(false));
+        assertTrue(ThreadUtils.getPendingDelayCount() < pending);
+        assertFalse(ran.get());
+        assertFalse(delayAsync(10, () -> ran.getAndSet(true), Runnable::run).join());
+        assertTrue(ran.get());
+    }
+
+}